@@ -1,6 +1,19 @@
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 // E-commerce Platform
 public class ECommercePlatform {
@@ -9,9 +22,9 @@ public class ECommercePlatform {
     static class Product {
         private final String productID;
         private final String name;
-        private final double price;
+        private final long price;  // Minor units, see Money
 
-        public Product(String productID, String name, double price) {
+        public Product(String productID, String name, long price) {
             this.productID = productID;
             this.name = name;
             this.price = price;
@@ -19,11 +32,11 @@ public class ECommercePlatform {
 
         public String getProductID() { return productID; }
         public String getName() { return name; }
-        public double getPrice() { return price; }
+        public long getPrice() { return price; }
 
         @Override
         public String toString() {
-            return productID + ": " + name + " ($" + price + ")";
+            return productID + ": " + name + " ($" + Money.format(price) + ")";
         }
     }
 
@@ -31,68 +44,277 @@ public class ECommercePlatform {
     static class User {
         private final String username;
         private final String password;
-        private final List<Product> cart;
 
         public User(String username, String password) {
             this.username = username;
             this.password = password;
-            this.cart = new ArrayList<>();
         }
 
         public String getUsername() { return username; }
         public String getPassword() { return password; }
-        public List<Product> getCart() { return cart; }
+    }
+
+    enum PaymentResult { PAID, INSUFFICIENT, EMPTY_CART, SESSION_EXPIRED }
+
+    // One logged-in shopper. The cart belongs to the session, so any number
+    // of users can shop at once; cart operations lock only this session.
+    static class Session {
+        private final String sessionID;
+        private final User user;
+        private final List<Product> cart;  // Guarded by this
+        private volatile long lastAccessNanos;
+        private volatile boolean closed;  // Written under this
+
+        public Session(String sessionID, User user) {
+            this.sessionID = sessionID;
+            this.user = user;
+            this.cart = new ArrayList<>();
+            this.lastAccessNanos = System.nanoTime();
+        }
 
-        public void addToCart(Product product) {
+        public String getSessionID() { return sessionID; }
+        public User getUser() { return user; }
+        public boolean isClosed() { return closed; }
+        long getLastAccessNanos() { return lastAccessNanos; }
+
+        void touch() {
+            lastAccessNanos = System.nanoTime();
+        }
+
+        // Closing takes the session's lock, so it cannot land in the middle of
+        // a cart operation: every operation either completes first or sees it.
+        synchronized void close() {
+            closed = true;
+        }
+
+        // Close the session if it is still idle once no operation is running;
+        // a shopper who came back since the sweeper looked keeps it.
+        synchronized boolean closeIfIdle(long idleTimeoutNanos) {
+            if (closed || System.nanoTime() - lastAccessNanos <= idleTimeoutNanos) {
+                return false;
+            }
+            closed = true;
+            return true;
+        }
+
+        // Returns false, leaving the cart alone, if the session has been closed.
+        public synchronized boolean addToCart(Product product) {
+            if (closed) {
+                return false;
+            }
             cart.add(product);
+            return true;
+        }
+
+        // Copy of the cart, safe to iterate while the shopper keeps adding.
+        public synchronized List<Product> getCart() {
+            return new ArrayList<>(cart);
+        }
+
+        public synchronized boolean isCartEmpty() {
+            return cart.isEmpty();
+        }
+
+        public synchronized long getCartTotal() {
+            long total = 0;
+            for (Product product : cart) {
+                total = Money.add(total, product.getPrice());
+            }
+            return total;
         }
 
-        public void clearCart() {
+        // Pay for the whole cart; the total and the clear happen under one lock,
+        // so an item added concurrently is never dropped unpaid.
+        public synchronized PaymentResult checkout(long amount) {
+            if (closed) {
+                return PaymentResult.SESSION_EXPIRED;
+            }
+            if (cart.isEmpty()) {
+                return PaymentResult.EMPTY_CART;
+            }
+            if (amount < getCartTotal()) {
+                return PaymentResult.INSUFFICIENT;
+            }
             cart.clear();
+            return PaymentResult.PAID;
         }
     }
 
-    // E-commerce system
+    // Live sessions by ID. A daemon sweeper evicts sessions idle for longer
+    // than the timeout; a lookup also refuses an idle session, so expiry
+    // does not depend on when the sweeper last ran.
+    static class SessionRegistry {
+        private static final SecureRandom TOKENS = new SecureRandom();
+
+        private final Map<String, Session> sessions;
+        private final long idleTimeoutNanos;
+        private final ScheduledExecutorService sweeper;
+
+        public SessionRegistry(long idleTimeoutMillis, long sweepIntervalMillis) {
+            this.sessions = new ConcurrentHashMap<>();
+            this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "session-eviction");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleAtFixedRate(this::evictIdle, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        public Session open(User user) {
+            byte[] token = new byte[16];
+            TOKENS.nextBytes(token);
+            Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(token), user);
+            sessions.put(session.getSessionID(), session);
+            return session;
+        }
+
+        // The live session with this ID, or null if it is unknown, closed or idle.
+        public Session get(String sessionID) {
+            Session session = sessionID == null ? null : sessions.get(sessionID);
+            return session != null && touch(session) ? session : null;
+        }
+
+        // Marks the session as used; returns false, evicting it, if it has expired.
+        public boolean touch(Session session) {
+            if (session.isClosed()) {
+                return false;
+            }
+            if (System.nanoTime() - session.getLastAccessNanos() > idleTimeoutNanos) {
+                close(session);
+                return false;
+            }
+            session.touch();
+            return true;
+        }
+
+        public void close(Session session) {
+            session.close();
+            sessions.remove(session.getSessionID(), session);
+        }
+
+        // Returns the number of sessions evicted.
+        public int evictIdle() {
+            long now = System.nanoTime();
+            int evicted = 0;
+            for (Session session : sessions.values()) {
+                // Cheap unlocked pre-check; closeIfIdle decides under the session's lock.
+                if (now - session.getLastAccessNanos() > idleTimeoutNanos && session.closeIfIdle(idleTimeoutNanos)) {
+                    sessions.remove(session.getSessionID(), session);
+                    evicted++;
+                }
+            }
+            return evicted;
+        }
+
+        public int size() {
+            return sessions.size();
+        }
+
+        public void shutdown() {
+            sweeper.shutdownNow();
+        }
+    }
+
+    // E-commerce system. Users and products are indexed by ID in concurrent
+    // maps and every shopper works through their own Session, so the
+    // platform serves many logged-in users at once.
     static class ECommerceSystem {
+        private static final long SESSION_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
         private final List<Product> products;
-        private final List<User> users;
-        private User currentUser;
+        private final Map<String, Product> productsByID;
+        private final Map<String, User> users;
+        private final SessionRegistry sessions;
+        private final LongAdder ordersProcessed;
+        private final LongAdder revenue;
 
         public ECommerceSystem() {
+            this(SESSION_TIMEOUT_MILLIS, TimeUnit.MINUTES.toMillis(1));
+        }
+
+        public ECommerceSystem(long sessionTimeoutMillis, long sweepIntervalMillis) {
             products = new ArrayList<>();
-            users = new ArrayList<>();
-            currentUser = null;
+            productsByID = new ConcurrentHashMap<>();
+            users = new ConcurrentHashMap<>();
+            sessions = new SessionRegistry(sessionTimeoutMillis, sweepIntervalMillis);
+            ordersProcessed = new LongAdder();
+            revenue = new LongAdder();
 
             // Adding some sample products
-            products.add(new Product("P01", "Laptop", 800.00));
-            products.add(new Product("P02", "Smartphone", 500.00));
-            products.add(new Product("P03", "Headphones", 100.00));
+            addProduct(new Product("P01", "Laptop", Money.ofUnits(800)));
+            addProduct(new Product("P02", "Smartphone", Money.ofUnits(500)));
+            addProduct(new Product("P03", "Headphones", Money.ofUnits(100)));
+        }
+
+        private void addProduct(Product product) {
+            products.add(product);
+            productsByID.put(product.getProductID(), product);
+        }
+
+        public List<Product> getProducts() { return products; }
+        public SessionRegistry getSessions() { return sessions; }
+        public long getOrdersProcessed() { return ordersProcessed.sum(); }
+        public long getRevenue() { return revenue.sum(); }
+
+        public Product findProduct(String productID) {
+            return productID == null ? null : productsByID.get(productID);
+        }
+
+        // Returns false if the username is already taken.
+        public boolean register(String username, String password) {
+            return users.putIfAbsent(username, new User(username, password)) == null;
+        }
+
+        // A new session for valid credentials, otherwise null.
+        public Session authenticate(String username, String password) {
+            User user = users.get(username);
+            return user != null && user.getPassword().equals(password) ? sessions.open(user) : null;
+        }
+
+        // Pay for the session's cart and record the order; a closed or idle
+        // session is refused.
+        public PaymentResult checkout(Session session, long amount) {
+            if (!sessions.touch(session)) {
+                return PaymentResult.SESSION_EXPIRED;
+            }
+            // Hold the session's lock so the recorded total is exactly the cart that was paid for.
+            synchronized (session) {
+                long total = session.getCartTotal();
+                PaymentResult result = session.checkout(amount);
+                if (result == PaymentResult.PAID) {
+                    ordersProcessed.increment();
+                    revenue.add(total);
+                }
+                return result;
+            }
         }
 
         // User registration
         public void registerUser(String username, String password) {
-            users.add(new User(username, password));
-            System.out.println("User registered successfully.");
+            if (register(username, password)) {
+                System.out.println("User registered successfully.");
+            } else {
+                System.out.println("Username " + username + " is already taken.");
+            }
         }
 
         // User login
-        public boolean loginUser(String username, String password) {
-            for (User user : users) {
-                if (user.getUsername().equals(username) && user.getPassword().equals(password)) {
-                    currentUser = user;
-                    System.out.println("Login successful. Welcome, " + username + "!");
-                    return true;
-                }
+        public Session loginUser(String username, String password) {
+            Session session = authenticate(username, password);
+            if (session != null) {
+                System.out.println("Login successful. Welcome, " + username + "!");
+            } else {
+                System.out.println("Invalid credentials.");
             }
-            System.out.println("Invalid credentials.");
-            return false;
+            return session;
         }
 
         // User logout
-        public void logoutUser() {
-            if (currentUser != null) {
-                System.out.println("User " + currentUser.getUsername() + " logged out.");
-                currentUser = null;
+        public void logoutUser(Session session) {
+            if (session != null) {
+                sessions.close(session);
+                System.out.println("User " + session.getUser().getUsername() + " logged out.");
             }
         }
 
@@ -105,58 +327,162 @@ public class ECommercePlatform {
         }
 
         // Add product to cart
-        public void addToCart(String productID) {
-            if (currentUser != null) {
-                for (Product product : products) {
-                    if (product.getProductID().equals(productID)) {
-                        currentUser.addToCart(product);
-                        System.out.println(product.getName() + " added to your cart.");
-                        return;
-                    }
+        public void addToCart(Session session, String productID) {
+            if (requireSession(session, "add products to your cart")) {
+                Product product = findProduct(productID);
+                if (product == null) {
+                    System.out.println("Product not found.");
+                } else if (session.addToCart(product)) {
+                    System.out.println(product.getName() + " added to your cart.");
+                } else {
+                    System.out.println("Your session has expired. Please log in again.");
                 }
-                System.out.println("Product not found.");
-            } else {
-                System.out.println("You must be logged in to add products to your cart.");
             }
         }
 
         // View cart
-        public void viewCart() {
-            if (currentUser != null) {
+        public void viewCart(Session session) {
+            if (requireSession(session, "view your cart")) {
                 System.out.println("\nYour Shopping Cart:");
-                double total = 0.0;
-                for (Product product : currentUser.getCart()) {
+                long total = 0;
+                for (Product product : session.getCart()) {
                     System.out.println(product);
-                    total += product.getPrice();
+                    total = Money.add(total, product.getPrice());
                 }
-                System.out.println("Total: $" + total);
-            } else {
-                System.out.println("You must be logged in to view your cart.");
+                System.out.println("Total: $" + Money.format(total));
+            }
+        }
+
+        // True if the session can check out; otherwise explains why not.
+        public boolean canCheckout(Session session) {
+            if (!requireSession(session, "process payment")) {
+                return false;
             }
+            if (session.isCartEmpty()) {
+                System.out.println("Your cart is empty.");
+                return false;
+            }
+            return true;
         }
 
         // Process payment
-        public void processPayment() {
-            if (currentUser != null) {
-                if (!currentUser.getCart().isEmpty()) {
-                    Scanner scanner = new Scanner(System.in);
-                    System.out.print("Enter payment amount: ");
-                    double amount = scanner.nextDouble();
-
-                    double total = currentUser.getCart().stream().mapToDouble(Product::getPrice).sum();
-
-                    if (amount >= total) {
-                        System.out.println("Payment successful. Your order has been processed.");
-                        currentUser.clearCart();
-                    } else {
-                        System.out.println("Insufficient payment. Please try again.");
+        public void processPayment(Session session, long amount) {
+            if (requireSession(session, "process payment")) {
+                switch (checkout(session, amount)) {
+                    case PAID -> System.out.println("Payment successful. Your order has been processed.");
+                    case INSUFFICIENT -> System.out.println("Insufficient payment. Please try again.");
+                    case EMPTY_CART -> System.out.println("Your cart is empty.");
+                    case SESSION_EXPIRED -> System.out.println("Your session has expired. Please log in again.");
+                }
+            }
+        }
+
+        public void shutdown() {
+            sessions.shutdown();
+        }
+
+        private boolean requireSession(Session session, String action) {
+            if (session == null) {
+                System.out.println("You must be logged in to " + action + ".");
+                return false;
+            }
+            if (!sessions.touch(session)) {
+                System.out.println("Your session has expired. Please log in again.");
+                return false;
+            }
+            return true;
+        }
+    }
+
+    // Thousands of simulated shoppers registering, filling carts and paying
+    // at once. Some underpay first and some abandon their session, which the
+    // sweeper must evict; once evicted, those sessions must refuse further
+    // cart changes and checkouts. Checks that revenue matches every paid cart.
+    // Run with: java ECommercePlatform$ShopperLoadTest [shoppers] [threads]
+    static class ShopperLoadTest {
+        public static void main(String[] args) throws InterruptedException {
+            int shoppers = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+            long timeoutMillis = 500;
+            ECommerceSystem system = new ECommerceSystem(timeoutMillis, 50);
+            List<Product> products = system.getProducts();
+
+            LongAdder expectedRevenue = new LongAdder();
+            LongAdder paidOrders = new LongAdder();
+            LongAdder operations = new LongAdder();
+            LongAdder failures = new LongAdder();
+            Queue<Session> abandonedSessions = new ConcurrentLinkedQueue<>();
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(shoppers);
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            for (int i = 0; i < shoppers; i++) {
+                String username = "shopper" + i;
+                pool.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try {
+                        start.await();
+                        system.register(username, "secret");
+                        Session session = system.authenticate(username, "secret");
+                        int items = 1 + random.nextInt(5);
+                        long total = 0;
+                        for (int item = 0; item < items; item++) {
+                            Product product = products.get(random.nextInt(products.size()));
+                            if (!session.addToCart(product)) {
+                                failures.increment();
+                            }
+                            total += product.getPrice();
+                        }
+                        operations.add(items + 2);
+                        if (session.getCartTotal() != total) {
+                            failures.increment();
+                        }
+                        if (random.nextInt(5) == 0) {
+                            abandonedSessions.add(session);  // Left for the sweeper
+                            return;
+                        }
+                        if (random.nextInt(10) == 0 && system.checkout(session, total - 1) != PaymentResult.INSUFFICIENT) {
+                            failures.increment();
+                        }
+                        if (system.checkout(session, total) == PaymentResult.PAID) {
+                            expectedRevenue.add(total);
+                            paidOrders.increment();
+                        } else {
+                            failures.increment();
+                        }
+                        system.getSessions().close(session);
+                        operations.add(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
                     }
-                } else {
-                    System.out.println("Your cart is empty.");
+                });
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            done.await();
+            long elapsed = System.nanoTime() - begin;
+            pool.shutdown();
+            int abandoned = system.getSessions().size();
+            Thread.sleep(timeoutMillis * 3);
+
+            // Shoppers returning to evicted sessions must be turned away.
+            int evictedStillOpen = 0;
+            for (Session session : abandonedSessions) {
+                if (!session.isClosed() || session.addToCart(products.get(0))
+                        || system.checkout(session, Long.MAX_VALUE) != PaymentResult.SESSION_EXPIRED) {
+                    evictedStillOpen++;
                 }
-            } else {
-                System.out.println("You must be logged in to process payment.");
             }
+
+            System.out.printf("%d shoppers on %d threads in %.0f ms: %.0f shoppers/sec, %.0f operations/sec%n",
+                    shoppers, threads, elapsed / 1e6, shoppers / (elapsed / 1e9), operations.sum() / (elapsed / 1e9));
+            System.out.printf("orders %d/%d, revenue $%s (expected $%s), failures %d, abandoned sessions %d, left after eviction %d, "
+                    + "evicted sessions still usable %d%n",
+                    system.getOrdersProcessed(), paidOrders.sum(), Money.format(system.getRevenue()),
+                    Money.format(expectedRevenue.sum()), failures.sum(), abandoned, system.getSessions().size(), evictedStillOpen);
+            system.shutdown();
         }
     }
 
@@ -164,6 +490,7 @@ public class ECommercePlatform {
     public static void main(String[] args) {
         ECommerceSystem system = new ECommerceSystem();
         Scanner scanner = new Scanner(System.in);
+        Session session = null;  // This console's shopper
 
         while (true) {
             System.out.println("\nE-Commerce Platform Menu:");
@@ -192,18 +519,36 @@ public class ECommercePlatform {
                     String loginUsername = scanner.nextLine();
                     System.out.print("Enter password: ");
                     String loginPassword = scanner.nextLine();
-                    system.loginUser(loginUsername, loginPassword);
+                    Session loggedIn = system.loginUser(loginUsername, loginPassword);
+                    if (loggedIn != null) {
+                        system.logoutUser(session);
+                        session = loggedIn;
+                    }
                 }
                 case 3 -> system.viewProducts();
                 case 4 -> {
                     System.out.print("Enter Product ID to add to cart: ");
                     String productID = scanner.nextLine();
-                    system.addToCart(productID);
+                    system.addToCart(session, productID);
+                }
+                case 5 -> system.viewCart(session);
+                case 6 -> {
+                    if (system.canCheckout(session)) {
+                        System.out.print("Enter payment amount: ");
+                        String amount = scanner.nextLine();
+                        try {
+                            system.processPayment(session, Money.parse(amount));
+                        } catch (NumberFormatException | ArithmeticException e) {
+                            System.out.println("Invalid amount: " + amount);
+                        }
+                    }
+                }
+                case 7 -> {
+                    system.logoutUser(session);
+                    session = null;
                 }
-                case 5 -> system.viewCart();
-                case 6 -> system.processPayment();
-                case 7 -> system.logoutUser();
                 case 8 -> {
+                    system.shutdown();
                     System.out.println("Exiting...");
                     scanner.close();
                     return;
@@ -0,0 +1,165 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Exact fixed-point money shared by the banking, payroll and e-commerce programs.
+// Amounts are plain longs counting minor units (cents), so arithmetic never
+// drifts and nothing is allocated. Every operation that can lose precision
+// takes an explicit RoundingMode; overflow throws ArithmeticException.
+// Compile it with the program that uses it, e.g. javac PayrollSystem.java,
+// which finds this file in the same directory (see README).
+final class Money {
+    static final int SCALE = 2;
+    static final long MINOR_UNITS = 100;  // Minor units per whole unit
+    static final long BASIS_POINTS = 10_000;  // Basis points in 100%
+
+    private Money() {
+    }
+
+    public static long ofUnits(long units) {
+        return Math.multiplyExact(units, MINOR_UNITS);
+    }
+
+    public static long fromDouble(double value, RoundingMode mode) {
+        return BigDecimal.valueOf(value).setScale(SCALE, mode).unscaledValue().longValueExact();
+    }
+
+    // Parse "12", "12.5", "-0.07" or "$1,250.00"; more than two decimals is rejected.
+    public static long parse(String text) {
+        String value = text.trim().replace(",", "");
+        if (value.startsWith("$")) {
+            value = value.substring(1);
+        }
+        boolean negative = value.startsWith("-");
+        if (negative || value.startsWith("+")) {
+            value = value.substring(1);
+        }
+        int dot = value.indexOf('.');
+        String whole = dot < 0 ? value : value.substring(0, dot);
+        String fraction = dot < 0 ? "" : value.substring(dot + 1);
+        if ((whole.isEmpty() && fraction.isEmpty()) || fraction.length() > SCALE) {
+            throw new NumberFormatException("Invalid amount: " + text);
+        }
+        long units = whole.isEmpty() ? 0 : parseDigits(whole, text);
+        long minor = fraction.isEmpty() ? 0 : parseDigits(fraction, text) * (fraction.length() == 1 ? 10 : 1);
+        long amount = Math.addExact(ofUnits(units), minor);
+        return negative ? -amount : amount;
+    }
+
+    public static String format(long amount) {
+        long abs = Math.abs(amount);
+        long minor = abs % MINOR_UNITS;
+        return (amount < 0 ? "-" : "") + abs / MINOR_UNITS + (minor < 10 ? ".0" : ".") + minor;
+    }
+
+    public static double toDouble(long amount) {
+        return (double) amount / MINOR_UNITS;
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public static long multiply(long amount, long factor) {
+        return Math.multiplyExact(amount, factor);
+    }
+
+    // amount * numerator / denominator, rounded once at the end.
+    public static long multiplyDivide(long amount, long numerator, long denominator, RoundingMode mode) {
+        return divide(Math.multiplyExact(amount, numerator), denominator, mode);
+    }
+
+    // Apply a rate given in basis points (1250 = 12.5%).
+    public static long applyRate(long amount, long basisPoints, RoundingMode mode) {
+        return multiplyDivide(amount, basisPoints, BASIS_POINTS, mode);
+    }
+
+    public static long divide(long dividend, long divisor, RoundingMode mode) {
+        if (divisor == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        int sign = (dividend < 0) == (divisor < 0) ? 1 : -1;
+        boolean awayFromZero = switch (mode) {
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+            case DOWN -> false;
+            case UP -> true;
+            case FLOOR -> sign < 0;
+            case CEILING -> sign > 0;
+            case HALF_UP, HALF_DOWN, HALF_EVEN -> {
+                long discarded = Math.abs(remainder);
+                long rest = Math.abs(divisor) - discarded;
+                if (discarded != rest) {
+                    yield discarded > rest;
+                }
+                yield mode == RoundingMode.HALF_UP || (mode == RoundingMode.HALF_EVEN && (quotient & 1) != 0);
+            }
+        };
+        return awayFromZero ? quotient + sign : quotient;
+    }
+
+    private static long parseDigits(String digits, String text) {
+        long value = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Invalid amount: " + text);
+            }
+            value = Math.addExact(Math.multiplyExact(value, 10), c - '0');
+        }
+        return value;
+    }
+}
+
+// Money arithmetic against BigDecimal: accumulate amounts and apply a
+// rounded percentage, checking that both produce the same total.
+// JMH is not available to these standalone programs, so this is a plain
+// harness with warm-up rounds. Run with: java MoneyBenchmark [operations]
+class MoneyBenchmark {
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        long[] amounts = new long[operations];
+        int[] rates = new int[operations];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < operations; i++) {
+            amounts[i] = random.nextLong(1, 1_000_000);
+            rates[i] = random.nextInt(0, 5_000);
+        }
+        BigDecimal[] decimalAmounts = new BigDecimal[operations];
+        for (int i = 0; i < operations; i++) {
+            decimalAmounts[i] = BigDecimal.valueOf(amounts[i], Money.SCALE);
+        }
+        BigDecimal basisPoints = BigDecimal.valueOf(Money.BASIS_POINTS);
+
+        for (int round = 1; round <= 5; round++) {
+            long start = System.nanoTime();
+            long total = 0;
+            for (int i = 0; i < operations; i++) {
+                long tax = Money.applyRate(amounts[i], rates[i], RoundingMode.HALF_EVEN);
+                total = Money.add(total, Money.subtract(amounts[i], tax));
+            }
+            long longNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            BigDecimal decimalTotal = BigDecimal.ZERO;
+            for (int i = 0; i < operations; i++) {
+                BigDecimal tax = decimalAmounts[i].multiply(BigDecimal.valueOf(rates[i]))
+                        .divide(basisPoints, Money.SCALE, RoundingMode.HALF_EVEN);
+                decimalTotal = decimalTotal.add(decimalAmounts[i].subtract(tax));
+            }
+            long decimalNanos = System.nanoTime() - start;
+
+            boolean same = decimalTotal.unscaledValue().longValueExact() == total;
+            System.out.printf("round %d: long minor units %.1f ns/op, BigDecimal %.1f ns/op, totals match: %s%n",
+                    round, (double) longNanos / operations, (double) decimalNanos / operations, same);
+        }
+    }
+}
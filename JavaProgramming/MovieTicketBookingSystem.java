@@ -1,6 +1,21 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 // Online Movie Ticket Booking System
 public class MovieTicketBookingSystem {
@@ -31,75 +46,713 @@ public class MovieTicketBookingSystem {
         }
     }
 
+    // Seat map class
+    // One bit per seat, packed into rows of long words. Seats are claimed and
+    // released with compare-and-set on the containing word, so no per-seat
+    // objects are allocated and no lock is held while searching.
+    static class SeatMap {
+        private final int totalSeats;
+        private final int seatsPerRow;
+        private final int rows;
+        private final int wordsPerRow;
+        private final AtomicLongArray words;
+        // Lowest row that may still contain a free seat.
+        private final AtomicInteger firstOpenRow;
+
+        public SeatMap(int totalSeats, int seatsPerRow) {
+            if (totalSeats <= 0 || seatsPerRow <= 0) {
+                throw new IllegalArgumentException("Seat counts must be positive");
+            }
+            this.totalSeats = totalSeats;
+            this.seatsPerRow = seatsPerRow;
+            this.rows = (totalSeats + seatsPerRow - 1) / seatsPerRow;
+            this.wordsPerRow = (seatsPerRow + 63) >>> 6;
+            this.words = new AtomicLongArray(rows * wordsPerRow);
+            this.firstOpenRow = new AtomicInteger(0);
+        }
+
+        public int getTotalSeats() { return totalSeats; }
+        public int getSeatsPerRow() { return seatsPerRow; }
+        public int getRows() { return rows; }
+
+        public boolean isFree(int seat) {
+            checkSeat(seat);
+            return (words.get(wordIndex(seat)) & bit(seat)) == 0;
+        }
+
+        // Hold a single seat; returns false if it is already taken.
+        public boolean hold(int seat) {
+            checkSeat(seat);
+            int index = wordIndex(seat);
+            long mask = bit(seat);
+            while (true) {
+                long word = words.get(index);
+                if ((word & mask) != 0) {
+                    return false;
+                }
+                if (words.compareAndSet(index, word, word | mask)) {
+                    return true;
+                }
+            }
+        }
+
+        public void release(int seat) {
+            releaseRange(seat, 1);
+        }
+
+        // Find and hold `count` adjacent seats in one row.
+        // Returns the first seat number of the block, or -1 if none is free.
+        public int holdAdjacent(int count) {
+            if (count <= 0 || count > seatsPerRow) {
+                return -1;
+            }
+            for (int row = firstOpenRow.get(); row < rows; row++) {
+                int length = rowLength(row);
+                int col = 0;
+                while (col + count <= length) {
+                    int free = nextFree(row, col, length);
+                    if (free < 0) {
+                        if (col == 0) {
+                            skipFullRow(row);
+                        }
+                        break;
+                    }
+                    if (free + count > length) {
+                        break;
+                    }
+                    int taken = nextTaken(row, free, free + count);
+                    if (taken >= 0) {
+                        col = taken + 1;
+                    } else if (claimRange(row, free, count)) {
+                        return row * seatsPerRow + free;
+                    } else {
+                        // Lost a race for part of the block; rescan from the same column.
+                        col = free;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        // Hold `count` seats wherever they are free, filling rows front to back
+        // so the party stays as close together as the map allows. Returns the
+        // seat numbers in ascending order. The caller must already have
+        // reserved the count (see Showtime), which guarantees enough seats are
+        // free; a pass that loses races for every seat it tries simply rescans.
+        public int[] holdAny(int count) {
+            int[] seats = new int[count];
+            int claimed = 0;
+            while (claimed < count) {
+                for (int row = firstOpenRow.get(); row < rows && claimed < count; row++) {
+                    int length = rowLength(row);
+                    int col = nextFree(row, 0, length);
+                    if (col < 0) {
+                        skipFullRow(row);
+                    }
+                    while (col >= 0 && claimed < count) {
+                        int seat = row * seatsPerRow + col;
+                        if (hold(seat)) {
+                            seats[claimed++] = seat;
+                        }
+                        col = col + 1 < length ? nextFree(row, col + 1, length) : -1;
+                    }
+                }
+            }
+            Arrays.sort(seats);
+            return seats;
+        }
+
+        // Release `count` seats starting at `firstSeat`; the block must lie in one row.
+        public void releaseRange(int firstSeat, int count) {
+            checkSeat(firstSeat);
+            int row = firstSeat / seatsPerRow;
+            int col = firstSeat % seatsPerRow;
+            if (count <= 0 || col + count > rowLength(row)) {
+                throw new IllegalArgumentException("Seat block is outside row " + (row + 1));
+            }
+            int base = row * wordsPerRow;
+            int end = col + count;
+            while (col < end) {
+                int index = base + (col >>> 6);
+                long mask = rangeMask(col, end);
+                while (true) {
+                    long word = words.get(index);
+                    if (words.compareAndSet(index, word, word & ~mask)) {
+                        break;
+                    }
+                }
+                col = ((col >>> 6) + 1) << 6;
+            }
+            lowerHint(row);
+        }
+
+        public int countFree() {
+            int taken = 0;
+            for (int i = 0; i < words.length(); i++) {
+                taken += Long.bitCount(words.get(i));
+            }
+            return totalSeats - taken;
+        }
+
+        // Describe seats given in ascending order as runs of adjacent seats.
+        public String describe(int[] seats) {
+            StringBuilder text = new StringBuilder();
+            int start = 0;
+            for (int i = 1; i <= seats.length; i++) {
+                if (i == seats.length || seats[i] != seats[i - 1] + 1 || seats[i] % seatsPerRow == 0) {
+                    if (text.length() > 0) {
+                        text.append("; ");
+                    }
+                    text.append(describe(seats[start], i - start));
+                    start = i;
+                }
+            }
+            return text.toString();
+        }
+
+        public String describe(int firstSeat, int count) {
+            int row = firstSeat / seatsPerRow;
+            int col = firstSeat % seatsPerRow;
+            if (count == 1) {
+                return "Row " + (row + 1) + ", Seat " + (col + 1);
+            }
+            return "Row " + (row + 1) + ", Seats " + (col + 1) + "-" + (col + count);
+        }
+
+        // Move the hint past a row a search found full, then look at the row
+        // again: a release that ran between the scan and the CAS may have read
+        // the old hint and skipped lowering it, which would strand its seats.
+        private void skipFullRow(int row) {
+            if (firstOpenRow.compareAndSet(row, row + 1) && nextFree(row, 0, rowLength(row)) >= 0) {
+                lowerHint(row);
+            }
+        }
+
+        private void lowerHint(int row) {
+            while (true) {
+                int open = firstOpenRow.get();
+                if (open <= row || firstOpenRow.compareAndSet(open, row)) {
+                    return;
+                }
+            }
+        }
+
+        private boolean claimRange(int row, int col, int count) {
+            int base = row * wordsPerRow;
+            int start = col;
+            int end = col + count;
+            while (col < end) {
+                int index = base + (col >>> 6);
+                long mask = rangeMask(col, end);
+                while (true) {
+                    long word = words.get(index);
+                    if ((word & mask) != 0) {
+                        if (col > start) {
+                            releaseBits(base, start, col);
+                        }
+                        return false;
+                    }
+                    if (words.compareAndSet(index, word, word | mask)) {
+                        break;
+                    }
+                }
+                col = ((col >>> 6) + 1) << 6;
+            }
+            return true;
+        }
+
+        private void releaseBits(int base, int col, int end) {
+            while (col < end) {
+                int index = base + (col >>> 6);
+                long mask = rangeMask(col, end);
+                while (true) {
+                    long word = words.get(index);
+                    if (words.compareAndSet(index, word, word & ~mask)) {
+                        break;
+                    }
+                }
+                col = ((col >>> 6) + 1) << 6;
+            }
+        }
+
+        // First free column in [from, limit) of the row, or -1.
+        private int nextFree(int row, int from, int limit) {
+            int base = row * wordsPerRow;
+            int i = from >>> 6;
+            long free = ~words.get(base + i) & (-1L << (from & 63));
+            while (true) {
+                if (free != 0) {
+                    int col = (i << 6) + Long.numberOfTrailingZeros(free);
+                    return col < limit ? col : -1;
+                }
+                if (++i << 6 >= limit) {
+                    return -1;
+                }
+                free = ~words.get(base + i);
+            }
+        }
+
+        // First taken column in [from, limit) of the row, or -1.
+        private int nextTaken(int row, int from, int limit) {
+            int base = row * wordsPerRow;
+            int i = from >>> 6;
+            long taken = words.get(base + i) & (-1L << (from & 63));
+            while (true) {
+                if (taken != 0) {
+                    int col = (i << 6) + Long.numberOfTrailingZeros(taken);
+                    return col < limit ? col : -1;
+                }
+                if (++i << 6 >= limit) {
+                    return -1;
+                }
+                taken = words.get(base + i);
+            }
+        }
+
+        // Bits for columns [col, end) that fall inside col's word.
+        private static long rangeMask(int col, int end) {
+            int wordEnd = ((col >>> 6) + 1) << 6;
+            int stop = Math.min(end, wordEnd);
+            long mask = -1L << (col & 63);
+            if (stop < wordEnd) {
+                mask &= (1L << (stop & 63)) - 1;
+            }
+            return mask;
+        }
+
+        private int rowLength(int row) {
+            return Math.min(seatsPerRow, totalSeats - row * seatsPerRow);
+        }
+
+        private int wordIndex(int seat) {
+            return (seat / seatsPerRow) * wordsPerRow + ((seat % seatsPerRow) >>> 6);
+        }
+
+        private long bit(int seat) {
+            return 1L << (seat % seatsPerRow);
+        }
+
+        private void checkSeat(int seat) {
+            if (seat < 0 || seat >= totalSeats) {
+                throw new IllegalArgumentException("Invalid seat number: " + seat);
+            }
+        }
+    }
+
     // Showtime class
+    // Seat counts are updated with compare-and-set, so concurrent bookings
+    // for the same show can never oversell and never block each other.
+    // The counter is reserved first so a sold-out show is rejected without
+    // searching the seat map.
     static class Showtime {
+        private static final int DEFAULT_SEATS_PER_ROW = 20;
+
         private final String time;
+        private final int minuteOfDay;
         private final int totalSeats;
-        private int availableSeats;
+        private final AtomicInteger availableSeats;
+        private final SeatMap seatMap;
 
         public Showtime(String time, int totalSeats) {
+            this(time, totalSeats, DEFAULT_SEATS_PER_ROW);
+        }
+
+        public Showtime(String time, int totalSeats, int seatsPerRow) {
+            this.minuteOfDay = parseTime(time);
+            if (minuteOfDay < 0) {
+                throw new IllegalArgumentException("Invalid showtime: " + time);
+            }
             this.time = time;
             this.totalSeats = totalSeats;
-            this.availableSeats = totalSeats;
+            this.availableSeats = new AtomicInteger(totalSeats);
+            this.seatMap = new SeatMap(totalSeats, seatsPerRow);
         }
 
         public String getTime() { return time; }
+        public int getMinuteOfDay() { return minuteOfDay; }
         public int getTotalSeats() { return totalSeats; }
-        public int getAvailableSeats() { return availableSeats; }
+        public int getAvailableSeats() { return availableSeats.get(); }
+        public SeatMap getSeatMap() { return seatMap; }
 
-        public boolean bookSeats(int seats) {
-            if (availableSeats >= seats) {
-                availableSeats -= seats;
-                return true;
-            } else {
+        // Parse "10:00 AM", "1:30pm" or "13:30" into minutes since midnight; -1 if invalid.
+        public static int parseTime(String time) {
+            if (time == null) {
+                return -1;
+            }
+            String text = time.trim();
+            int colon = text.indexOf(':');
+            if (colon < 1 || colon > 2 || text.length() < colon + 3) {
+                return -1;
+            }
+            int hour = parseDigits(text, 0, colon);
+            int minute = parseDigits(text, colon + 1, colon + 3);
+            if (hour < 0 || minute < 0 || minute > 59) {
+                return -1;
+            }
+            String suffix = text.substring(colon + 3).trim();
+            if (suffix.isEmpty()) {
+                return hour <= 23 ? hour * 60 + minute : -1;
+            }
+            if (hour < 1 || hour > 12) {
+                return -1;
+            }
+            if (suffix.equalsIgnoreCase("AM")) {
+                return (hour % 12) * 60 + minute;
+            }
+            if (suffix.equalsIgnoreCase("PM")) {
+                return (hour % 12 + 12) * 60 + minute;
+            }
+            return -1;
+        }
+
+        private static int parseDigits(String text, int from, int to) {
+            int value = 0;
+            for (int i = from; i < to; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+
+        // Book a block of adjacent seats; returns the first seat number or -1.
+        public int bookAdjacentSeats(int seats) {
+            if (!reserveCount(seats)) {
+                return -1;
+            }
+            int firstSeat = seatMap.holdAdjacent(seats);
+            if (firstSeat < 0) {
+                availableSeats.addAndGet(seats);
+            }
+            return firstSeat;
+        }
+
+        // Book `seats` seats: one adjacent block when a row has room, otherwise
+        // split across rows. Returns the seat numbers in ascending order, or
+        // null if the show does not have that many seats left.
+        public int[] bookSeats(int seats) {
+            if (!reserveCount(seats)) {
+                return null;
+            }
+            int firstSeat = seats <= seatMap.getSeatsPerRow() ? seatMap.holdAdjacent(seats) : -1;
+            return firstSeat >= 0 ? seatRange(firstSeat, seats) : seatMap.holdAny(seats);
+        }
+
+        public static int[] seatRange(int firstSeat, int seats) {
+            int[] range = new int[seats];
+            for (int i = 0; i < seats; i++) {
+                range[i] = firstSeat + i;
+            }
+            return range;
+        }
+
+        // Book one specific seat chosen by the customer.
+        public boolean bookSeat(int seat) {
+            if (!reserveCount(1)) {
+                return false;
+            }
+            if (!seatMap.hold(seat)) {
+                availableSeats.incrementAndGet();
                 return false;
             }
+            return true;
+        }
+
+        public void releaseSeats(int firstSeat, int seats) {
+            seatMap.releaseRange(firstSeat, seats);
+            availableSeats.addAndGet(seats);
+        }
+
+        public void releaseSeats(int[] seats) {
+            for (int seat : seats) {
+                seatMap.release(seat);
+            }
+            availableSeats.addAndGet(seats.length);
         }
 
-        public void cancelBooking(int seats) {
-            availableSeats += seats;
+        private boolean reserveCount(int seats) {
+            if (seats <= 0) {
+                return false;
+            }
+            while (true) {
+                int current = availableSeats.get();
+                if (current < seats) {
+                    return false;
+                }
+                if (availableSeats.compareAndSet(current, current - seats)) {
+                    return true;
+                }
+            }
         }
 
         @Override
         public String toString() {
-            return time + " (Seats available: " + availableSeats + ")";
+            return time + " (Seats available: " + availableSeats.get() + ")";
+        }
+    }
+
+    // Catalog class
+    // Hash indexes from movie ID to movie and from (movie ID, minute of day)
+    // to showtime, so lookups do not depend on catalog size.
+    static class Catalog {
+        private final List<Movie> movies;
+        private final Map<String, Movie> moviesById;
+        private final Map<ShowtimeKey, Showtime> showtimesByKey;
+
+        public Catalog() {
+            movies = new ArrayList<>();
+            moviesById = new ConcurrentHashMap<>();
+            showtimesByKey = new ConcurrentHashMap<>();
+        }
+
+        // Add a movie together with any showtimes it already has. If the ID or
+        // one of the showtimes is a duplicate, nothing is left indexed.
+        public void addMovie(Movie movie) {
+            if (moviesById.putIfAbsent(movie.getMovieID(), movie) != null) {
+                throw new IllegalArgumentException("Duplicate movie ID: " + movie.getMovieID());
+            }
+            List<Showtime> indexed = new ArrayList<>();
+            try {
+                for (Showtime showtime : movie.getShowtimes()) {
+                    indexShowtime(movie, showtime);
+                    indexed.add(showtime);
+                }
+            } catch (IllegalArgumentException e) {
+                for (Showtime showtime : indexed) {
+                    showtimesByKey.remove(new ShowtimeKey(movie.getMovieID(), showtime.getMinuteOfDay()), showtime);
+                }
+                moviesById.remove(movie.getMovieID(), movie);
+                throw e;
+            }
+            movies.add(movie);
+        }
+
+        public void addShowtime(Movie movie, Showtime showtime) {
+            indexShowtime(movie, showtime);
+            movie.addShowtime(showtime);
+        }
+
+        public List<Movie> getMovies() { return movies; }
+
+        public Movie findMovie(String movieID) {
+            return movieID == null ? null : moviesById.get(movieID);
+        }
+
+        public Showtime findShowtime(String movieID, String time) {
+            int minuteOfDay = Showtime.parseTime(time);
+            if (movieID == null || minuteOfDay < 0) {
+                return null;
+            }
+            return showtimesByKey.get(new ShowtimeKey(movieID, minuteOfDay));
+        }
+
+        private void indexShowtime(Movie movie, Showtime showtime) {
+            ShowtimeKey key = new ShowtimeKey(movie.getMovieID(), showtime.getMinuteOfDay());
+            if (showtimesByKey.putIfAbsent(key, showtime) != null) {
+                throw new IllegalArgumentException("Duplicate showtime " + showtime.getTime() + " for movie " + movie.getMovieID());
+            }
+        }
+    }
+
+    // Showtime index key
+    static final class ShowtimeKey {
+        private final String movieID;
+        private final int minuteOfDay;
+
+        ShowtimeKey(String movieID, int minuteOfDay) {
+            this.movieID = movieID;
+            this.minuteOfDay = minuteOfDay;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ShowtimeKey)) {
+                return false;
+            }
+            ShowtimeKey other = (ShowtimeKey) o;
+            return minuteOfDay == other.minuteOfDay && movieID.equals(other.movieID);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * movieID.hashCode() + minuteOfDay;
         }
     }
 
     // Booking class
     static class Booking {
+        private final int bookingID;
         private final Movie movie;
         private final Showtime showtime;
-        private final int seatsBooked;
+        private final int[] seats;  // Seat numbers in ascending order
 
-        public Booking(Movie movie, Showtime showtime, int seatsBooked) {
+        public Booking(int bookingID, Movie movie, Showtime showtime, int[] seats) {
+            this.bookingID = bookingID;
             this.movie = movie;
             this.showtime = showtime;
-            this.seatsBooked = seatsBooked;
+            this.seats = seats;
         }
 
+        public int getBookingID() { return bookingID; }
         public Movie getMovie() { return movie; }
         public Showtime getShowtime() { return showtime; }
-        public int getSeatsBooked() { return seatsBooked; }
+        public int[] getSeats() { return seats.clone(); }
+        public int getSeatsBooked() { return seats.length; }
 
         public void cancel() {
-            showtime.cancelBooking(seatsBooked);
+            showtime.releaseSeats(seats);
         }
 
         @Override
         public String toString() {
-            return "Movie: " + movie.getTitle() + ", Showtime: " + showtime.getTime() + ", Seats booked: " + seatsBooked;
+            return "Movie: " + movie.getTitle() + ", Showtime: " + showtime.getTime() + ", Seats booked: " + seats.length
+                    + " (" + showtime.getSeatMap().describe(seats) + ")";
+        }
+    }
+
+    // Seat hold class
+    static class SeatHold {
+        private final long holdID;
+        private final Movie movie;
+        private final Showtime showtime;
+        private final int firstSeat;
+        private final int seats;
+        private final long expiryTick;
+
+        public SeatHold(long holdID, Movie movie, Showtime showtime, int firstSeat, int seats, long expiryTick) {
+            this.holdID = holdID;
+            this.movie = movie;
+            this.showtime = showtime;
+            this.firstSeat = firstSeat;
+            this.seats = seats;
+            this.expiryTick = expiryTick;
+        }
+
+        public long getHoldID() { return holdID; }
+        public Movie getMovie() { return movie; }
+        public Showtime getShowtime() { return showtime; }
+        public int getFirstSeat() { return firstSeat; }
+        public int getSeats() { return seats; }
+        public long getExpiryTick() { return expiryTick; }
+    }
+
+    // Seat hold manager class
+    // Holds expire through a hashed timing wheel: a hold is queued in the
+    // slot of its expiry tick and one daemon thread visits a single slot per
+    // tick, so outstanding holds cost nothing until they are due. Confirmed
+    // or released holds are dropped from their slot lazily.
+    static class SeatHoldManager {
+        private final Map<Long, SeatHold> holds;
+        private final List<ConcurrentLinkedQueue<SeatHold>> wheel;
+        private final long tickMillis;
+        private final AtomicLong nextHoldID;
+        private final ScheduledExecutorService ticker;
+        private volatile long currentTick;
+
+        public SeatHoldManager(int wheelSize, long tickMillis) {
+            if (wheelSize <= 0 || tickMillis <= 0) {
+                throw new IllegalArgumentException("Wheel size and tick must be positive");
+            }
+            this.holds = new ConcurrentHashMap<>();
+            this.wheel = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                wheel.add(new ConcurrentLinkedQueue<>());
+            }
+            this.tickMillis = tickMillis;
+            this.nextHoldID = new AtomicLong(1);
+            this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "seat-hold-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        }
+
+        // Hold adjacent seats for holdMillis; returns null if no block is free.
+        public SeatHold hold(Movie movie, Showtime showtime, int seats, long holdMillis) {
+            int firstSeat = showtime.bookAdjacentSeats(seats);
+            if (firstSeat < 0) {
+                return null;
+            }
+            // One extra tick so a hold never lands in the slot being expired right now.
+            long ticks = Math.max(1, (holdMillis + tickMillis - 1) / tickMillis) + 1;
+            SeatHold hold = new SeatHold(nextHoldID.getAndIncrement(), movie, showtime, firstSeat, seats, currentTick + ticks);
+            holds.put(hold.getHoldID(), hold);
+            wheel.get((int) (hold.getExpiryTick() % wheel.size())).add(hold);
+            return hold;
+        }
+
+        // Take ownership of a live hold's seats; returns null if it is unknown or expired.
+        public SeatHold confirm(long holdID) {
+            SeatHold hold = holds.remove(holdID);
+            if (hold == null) {
+                return null;
+            }
+            if (hold.getExpiryTick() <= currentTick) {
+                hold.getShowtime().releaseSeats(hold.getFirstSeat(), hold.getSeats());
+                return null;
+            }
+            return hold;
+        }
+
+        public boolean release(long holdID) {
+            SeatHold hold = holds.remove(holdID);
+            if (hold == null) {
+                return false;
+            }
+            hold.getShowtime().releaseSeats(hold.getFirstSeat(), hold.getSeats());
+            return true;
+        }
+
+        public int getActiveHolds() { return holds.size(); }
+        public long getTickMillis() { return tickMillis; }
+
+        // Expire the holds due in the next slot. Called by the ticker thread only.
+        void advance() {
+            long tick = currentTick + 1;
+            currentTick = tick;
+            Iterator<SeatHold> slot = wheel.get((int) (tick % wheel.size())).iterator();
+            while (slot.hasNext()) {
+                SeatHold hold = slot.next();
+                if (holds.get(hold.getHoldID()) != hold) {
+                    slot.remove();
+                } else if (hold.getExpiryTick() <= tick) {
+                    slot.remove();
+                    if (holds.remove(hold.getHoldID(), hold)) {
+                        hold.getShowtime().releaseSeats(hold.getFirstSeat(), hold.getSeats());
+                    }
+                }
+            }
+        }
+
+        public void shutdown() {
+            ticker.shutdownNow();
         }
     }
 
     // Online Movie Ticket Booking System class
     static class BookingSystem {
-        private final List<Movie> movies;
-        private final List<Booking> bookings;
+        private static final int HOLD_MINUTES = 10;
+        private static final int HOLD_WHEEL_SLOTS = 512;
+        private static final long HOLD_TICK_MILLIS = 1000;
+
+        private final Catalog catalog;
+        // Booking IDs are allocated once and never reused, so cancelling one
+        // booking cannot shift the ID of another.
+        private final Map<Integer, Booking> bookings;
+        private final AtomicInteger nextBookingID;
+        private final SeatHoldManager holdManager;
 
         public BookingSystem() {
-            movies = new ArrayList<>();
-            bookings = new ArrayList<>();
+            catalog = new Catalog();
+            bookings = new ConcurrentHashMap<>();
+            nextBookingID = new AtomicInteger(1);
+            holdManager = new SeatHoldManager(HOLD_WHEEL_SLOTS, HOLD_TICK_MILLIS);
 
             // Adding some sample movies and showtimes
             Movie movie1 = new Movie("M01", "Inside Out");
@@ -112,21 +765,23 @@ public class MovieTicketBookingSystem {
             movie2.addShowtime(new Showtime("3:00 PM", 100));
             movie2.addShowtime(new Showtime("7:00 PM", 100));
 
-            movies.add(movie1);
-            movies.add(movie2);
+            catalog.addMovie(movie1);
+            catalog.addMovie(movie2);
         }
 
+        public Catalog getCatalog() { return catalog; }
+
         // View available movies
         public void viewMovies() {
             System.out.println("\nAvailable Movies:");
-            for (Movie movie : movies) {
+            for (Movie movie : catalog.getMovies()) {
                 System.out.println(movie);
             }
         }
 
         // View showtimes for a specific movie
         public void viewShowtimes(String movieID) {
-            Movie movie = findMovie(movieID);
+            Movie movie = catalog.findMovie(movieID);
             if (movie != null) {
                 System.out.println("\nShowtimes for " + movie.getTitle() + ":");
                 for (Showtime showtime : movie.getShowtimes()) {
@@ -139,14 +794,16 @@ public class MovieTicketBookingSystem {
 
         // Book tickets for a movie
         public void bookTickets(String movieID, String showtimeStr, int seats) {
-            Movie movie = findMovie(movieID);
+            Movie movie = catalog.findMovie(movieID);
             if (movie != null) {
-                Showtime showtime = findShowtime(movie, showtimeStr);
+                Showtime showtime = catalog.findShowtime(movieID, showtimeStr);
                 if (showtime != null) {
-                    if (showtime.bookSeats(seats)) {
-                        Booking booking = new Booking(movie, showtime, seats);
-                        bookings.add(booking);
-                        System.out.println("Successfully booked " + seats + " seats for " + movie.getTitle() + " at " + showtime.getTime());
+                    int[] booked = showtime.bookSeats(seats);
+                    if (booked != null) {
+                        Booking booking = new Booking(nextBookingID.getAndIncrement(), movie, showtime, booked);
+                        bookings.put(booking.getBookingID(), booking);
+                        System.out.println("Successfully booked " + seats + " seats for " + movie.getTitle() + " at " + showtime.getTime()
+                                + " (" + showtime.getSeatMap().describe(booked) + "). Booking ID: " + booking.getBookingID());
                     } else {
                         System.out.println("Not enough seats available.");
                     }
@@ -158,12 +815,56 @@ public class MovieTicketBookingSystem {
             }
         }
 
+        // Hold seats while the customer checks out
+        public void holdSeats(String movieID, String showtimeStr, int seats) {
+            Movie movie = catalog.findMovie(movieID);
+            Showtime showtime = movie == null ? null : catalog.findShowtime(movieID, showtimeStr);
+            if (showtime == null) {
+                System.out.println(movie == null ? "Movie not found." : "Showtime not found.");
+                return;
+            }
+            SeatHold hold = holdManager.hold(movie, showtime, seats, TimeUnit.MINUTES.toMillis(HOLD_MINUTES));
+            if (hold != null) {
+                System.out.println("Held " + showtime.getSeatMap().describe(hold.getFirstSeat(), seats) + " for "
+                        + movie.getTitle() + " at " + showtime.getTime() + " for " + HOLD_MINUTES
+                        + " minutes. Hold ID: " + hold.getHoldID());
+            } else {
+                System.out.println("Not enough adjacent seats available.");
+            }
+        }
+
+        // Turn a hold into a booking
+        public void confirmHold(long holdID) {
+            SeatHold hold = holdManager.confirm(holdID);
+            if (hold != null) {
+                Booking booking = new Booking(nextBookingID.getAndIncrement(), hold.getMovie(), hold.getShowtime(),
+                        Showtime.seatRange(hold.getFirstSeat(), hold.getSeats()));
+                bookings.put(booking.getBookingID(), booking);
+                System.out.println("Hold confirmed. Booking ID: " + booking.getBookingID());
+            } else {
+                System.out.println("Hold not found or expired.");
+            }
+        }
+
+        // Give held seats back before the hold expires
+        public void releaseHold(long holdID) {
+            if (holdManager.release(holdID)) {
+                System.out.println("Hold released.");
+            } else {
+                System.out.println("Hold not found or expired.");
+            }
+        }
+
+        public void shutdown() {
+            holdManager.shutdown();
+        }
+
         // Cancel a booking
         public void cancelBooking(int bookingID) {
-            if (bookingID > 0 && bookingID <= bookings.size()) {
-                Booking booking = bookings.get(bookingID - 1);
+            // remove() succeeds for exactly one caller, so seats are returned once.
+            Booking booking = bookings.remove(bookingID);
+            if (booking != null) {
                 booking.cancel();
-                bookings.remove(bookingID - 1);
                 System.out.println("Booking cancelled: " + booking);
             } else {
                 System.out.println("Invalid booking ID.");
@@ -176,27 +877,156 @@ public class MovieTicketBookingSystem {
             if (bookings.isEmpty()) {
                 System.out.println("No bookings found.");
             } else {
-                for (int i = 0; i < bookings.size(); i++) {
-                    System.out.println((i + 1) + ". " + bookings.get(i));
+                List<Booking> sorted = new ArrayList<>(bookings.values());
+                sorted.sort(Comparator.comparingInt(Booking::getBookingID));
+                for (Booking booking : sorted) {
+                    System.out.println(booking.getBookingID() + ". " + booking);
                 }
             }
         }
+    }
 
-        // Find a movie by ID
-        private Movie findMovie(String movieID) {
-            for (Movie movie : movies) {
-                if (movie.getMovieID().equals(movieID)) {
-                    return movie;
+    // Multi-threaded stress test for Showtime seat booking.
+    // Run with: java MovieTicketBookingSystem$BookingStressTest [showtimes] [seatsPerShow] [requestsPerThread]
+    static class BookingStressTest {
+        public static void main(String[] args) throws InterruptedException {
+            int showCount = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+            int seatsPerShow = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+            int requestsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+            int maxThreads = Runtime.getRuntime().availableProcessors();
+
+            System.out.println("threads, requests/sec, seats booked, oversold");
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                run(threads, showCount, seatsPerShow, requestsPerThread);
+                if (threads < maxThreads && threads * 2 > maxThreads) {
+                    run(maxThreads, showCount, seatsPerShow, requestsPerThread);
                 }
             }
-            return null;
         }
 
-        // Find a showtime by time string
-        private Showtime findShowtime(Movie movie, String showtimeStr) {
-            for (Showtime showtime : movie.getShowtimes()) {
-                if (showtime.getTime().equals(showtimeStr)) {
-                    return showtime;
+        private static void run(int threads, int showCount, int seatsPerShow, int requestsPerThread)
+                throws InterruptedException {
+            Showtime[] shows = new Showtime[showCount];
+            for (int i = 0; i < showCount; i++) {
+                // Minute i of the day, so every show has a valid and distinct time.
+                int minute = i % (24 * 60);
+                shows[i] = new Showtime(minute / 60 + ":" + (minute % 60 < 10 ? "0" : "") + minute % 60, seatsPerShow);
+            }
+            LongAdder seatsBooked = new LongAdder();
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+
+            for (int t = 0; t < threads; t++) {
+                Thread worker = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long booked = 0;
+                    try {
+                        start.await();
+                        for (int i = 0; i < requestsPerThread; i++) {
+                            Showtime show = shows[random.nextInt(shows.length)];
+                            int seats = 1 + random.nextInt(4);
+                            int firstSeat = show.bookAdjacentSeats(seats);
+                            if (firstSeat >= 0) {
+                                booked += seats;
+                                // Return some seats so shows do not simply sell out.
+                                if (random.nextInt(4) == 0) {
+                                    show.releaseSeats(firstSeat, seats);
+                                    booked -= seats;
+                                }
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        seatsBooked.add(booked);
+                        done.countDown();
+                    }
+                });
+                worker.start();
+            }
+
+            long startTime = System.nanoTime();
+            start.countDown();
+            done.await();
+            long elapsed = System.nanoTime() - startTime;
+
+            long remaining = 0;
+            boolean oversold = false;
+            for (Showtime show : shows) {
+                remaining += show.getAvailableSeats();
+                oversold |= show.getAvailableSeats() < 0;
+                oversold |= show.getAvailableSeats() != show.getSeatMap().countFree();
+            }
+            long expectedRemaining = (long) showCount * seatsPerShow - seatsBooked.sum();
+            oversold |= remaining != expectedRemaining;
+
+            double requestsPerSec = (double) threads * requestsPerThread / (elapsed / 1_000_000_000.0);
+            System.out.printf("%d, %.0f, %d, %s%n", threads, requestsPerSec, seatsBooked.sum(), oversold ? "YES" : "no");
+        }
+    }
+
+    // Benchmark of indexed catalog lookups against the original linear scans.
+    // Run with: java MovieTicketBookingSystem$CatalogBenchmark [movies] [showtimesPerMovie] [lookups]
+    static class CatalogBenchmark {
+        public static void main(String[] args) {
+            int movieCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+            int showsPerMovie = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+            int lookups = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+            Catalog catalog = new Catalog();
+            String[] times = new String[showsPerMovie];
+            for (int i = 0; i < showsPerMovie; i++) {
+                int minute = (9 * 60 + i * 150) % (24 * 60);
+                int hour = minute / 60;
+                times[i] = (hour % 12 == 0 ? 12 : hour % 12) + ":" + (minute % 60 < 10 ? "0" : "") + minute % 60
+                        + (hour < 12 ? " AM" : " PM");
+            }
+            for (int m = 0; m < movieCount; m++) {
+                Movie movie = new Movie("M" + m, "Movie " + m);
+                for (String time : times) {
+                    movie.addShowtime(new Showtime(time, 100));
+                }
+                catalog.addMovie(movie);
+            }
+
+            String[] movieIDs = new String[lookups];
+            String[] showtimes = new String[lookups];
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < lookups; i++) {
+                movieIDs[i] = "M" + random.nextInt(movieCount);
+                showtimes[i] = times[random.nextInt(times.length)];
+            }
+
+            for (int round = 0; round < 3; round++) {
+                long scanChecksum = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < lookups; i++) {
+                    scanChecksum += scan(catalog.getMovies(), movieIDs[i], showtimes[i]).getTotalSeats();
+                }
+                long scanNanos = System.nanoTime() - start;
+
+                long indexChecksum = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < lookups; i++) {
+                    indexChecksum += catalog.findShowtime(movieIDs[i], showtimes[i]).getTotalSeats();
+                }
+                long indexNanos = System.nanoTime() - start;
+
+                System.out.printf("round %d: linear scan %.1f ns/lookup, indexed %.1f ns/lookup (checksums %d/%d)%n",
+                        round + 1, (double) scanNanos / lookups, (double) indexNanos / lookups, scanChecksum, indexChecksum);
+            }
+        }
+
+        // The lookup BookingSystem used before the catalog was indexed.
+        private static Showtime scan(List<Movie> movies, String movieID, String time) {
+            for (Movie movie : movies) {
+                if (movie.getMovieID().equals(movieID)) {
+                    for (Showtime showtime : movie.getShowtimes()) {
+                        if (showtime.getTime().equals(time)) {
+                            return showtime;
+                        }
+                    }
+                    return null;
                 }
             }
             return null;
@@ -215,7 +1045,10 @@ public class MovieTicketBookingSystem {
             System.out.println("3. Book Tickets");
             System.out.println("4. View Bookings");
             System.out.println("5. Cancel Booking");
-            System.out.println("6. Exit");
+            System.out.println("6. Hold Seats");
+            System.out.println("7. Confirm Hold");
+            System.out.println("8. Release Hold");
+            System.out.println("9. Exit");
             System.out.print("Choose an option: ");
             int choice = scanner.nextInt();
             scanner.nextLine(); // Consume newline
@@ -244,7 +1077,27 @@ public class MovieTicketBookingSystem {
                     system.cancelBooking(bookingID);
                 }
                 case 6 -> {
+                    System.out.print("Enter Movie ID: ");
+                    String movieIDForHold = scanner.nextLine();
+                    System.out.print("Enter Showtime (e.g., 10:00 AM): ");
+                    String showtime = scanner.nextLine();
+                    System.out.print("Enter number of seats: ");
+                    int seats = scanner.nextInt();
+                    system.holdSeats(movieIDForHold, showtime, seats);
+                }
+                case 7 -> {
+                    System.out.print("Enter Hold ID to confirm: ");
+                    long holdID = scanner.nextLong();
+                    system.confirmHold(holdID);
+                }
+                case 8 -> {
+                    System.out.print("Enter Hold ID to release: ");
+                    long holdID = scanner.nextLong();
+                    system.releaseHold(holdID);
+                }
+                case 9 -> {
                     System.out.println("Exiting...");
+                    system.shutdown();
                     scanner.close();
                     return;
                 }
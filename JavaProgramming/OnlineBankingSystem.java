@@ -1,17 +1,199 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+// Salted PBKDF2 hash of a password together with the cost it was made with.
+class PasswordHash {
+    private final byte[] salt;
+    private final byte[] hash;
+    private final int iterations;
+
+    public PasswordHash(byte[] salt, byte[] hash, int iterations) {
+        this.salt = salt;
+        this.hash = hash;
+        this.iterations = iterations;
+    }
+
+    public byte[] getSalt() {
+        return salt;
+    }
+
+    public byte[] getHash() {
+        return hash;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+}
+
+// Salted PBKDF2-HMAC-SHA256 password hashing. The iteration count is the
+// tunable cost; each stored hash remembers the count it was made with, so
+// the cost can be raised without invalidating existing passwords.
+class PasswordHasher {
+    static final int DEFAULT_ITERATIONS = 210_000;
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random;
+
+    public PasswordHasher(int iterations) {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("Iterations must be positive");
+        }
+        this.iterations = iterations;
+        this.random = new SecureRandom();
+    }
+
+    public PasswordHash hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        return new PasswordHash(salt, derive(password, salt, iterations), iterations);
+    }
+
+    // Compares in constant time regardless of where the hashes differ.
+    public static boolean verify(String password, PasswordHash stored) {
+        byte[] candidate = derive(password, stored.getSalt(), stored.getIterations());
+        return MessageDigest.isEqual(candidate, stored.getHash());
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
+
+// Bounded LRU of recent successful logins so repeat logins skip the KDF.
+// Entries hold an HMAC of the credentials under a random per-process key,
+// never the password itself, and expire after a fixed time to live.
+class LoginCache {
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final long ttlMillis;
+    private final Map<String, CachedLogin> entries;
+    private final ThreadLocal<Mac> macs;
+
+    public LoginCache(int capacity, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedLogin> eldest) {
+                return size() > capacity;
+            }
+        };
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        SecretKeySpec secret = new SecretKeySpec(key, MAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(secret);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+            }
+        });
+    }
+
+    public boolean matches(String username, String password) {
+        CachedLogin cached;
+        synchronized (entries) {
+            cached = entries.get(username);
+        }
+        if (cached == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() >= cached.expiresAt) {
+            invalidate(username);
+            return false;
+        }
+        return MessageDigest.isEqual(cached.tag, tag(username, password));
+    }
+
+    public void remember(String username, String password) {
+        CachedLogin cached = new CachedLogin(tag(username, password), System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(username, cached);
+        }
+    }
+
+    public void invalidate(String username) {
+        synchronized (entries) {
+            entries.remove(username);
+        }
+    }
+
+    private byte[] tag(String username, String password) {
+        Mac mac = macs.get();
+        mac.update(username.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class CachedLogin {
+        private final byte[] tag;
+        private final long expiresAt;
+
+        CachedLogin(byte[] tag, long expiresAt) {
+            this.tag = tag;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
 
 class User {
     private final String username;
-    private final  String password; // In a real system, ensure this is hashed and securely stored
-    private final  Account account;
+    private final PasswordHash passwordHash;
+    private final Account account;
 
-    public User(String username, String password, Account account) {
-       this.username = username;
-        this.password = password;
+    public User(String username, PasswordHash passwordHash, Account account) {
+        this.username = username;
+        this.passwordHash = passwordHash;
         this.account = account;
     }
 
@@ -20,7 +202,7 @@ class User {
     }
 
     public boolean checkPassword(String password) {
-        return this.password.equals(password);
+        return PasswordHasher.verify(password, passwordHash);
     }
 
     public Account getAccount() {
@@ -28,85 +210,1162 @@ class User {
     }
 }
 
+enum TransactionType {
+    OPENED, DEPOSIT, WITHDRAWAL, WITHDRAWAL_FAILED, TRANSFER_OUT, TRANSFER_IN
+}
+
+// A single history entry, materialized only when history is queried.
+class Transaction {
+    private final TransactionType type;
+    private final long timestamp;
+    private final long amount;  // Minor units, see Money
+    private final long balanceAfter;
+    private final String counterparty;
+
+    public Transaction(TransactionType type, long timestamp, long amount, long balanceAfter, String counterparty) {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+        this.counterparty = counterparty;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public long getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public String getCounterparty() {
+        return counterparty;
+    }
+
+    @Override
+    public String toString() {
+        return switch (type) {
+            case OPENED -> "Account created with balance: " + Money.format(balanceAfter);
+            case DEPOSIT -> "Deposited: " + Money.format(amount) + ", New Balance: " + Money.format(balanceAfter);
+            case WITHDRAWAL -> "Withdrew: " + Money.format(amount) + ", New Balance: " + Money.format(balanceAfter);
+            case WITHDRAWAL_FAILED -> "Withdrawal attempt failed: " + Money.format(amount) + ", Insufficient funds.";
+            case TRANSFER_OUT -> "Transferred: " + Money.format(amount) + " to Account: " + counterparty
+                    + ", New Balance: " + Money.format(balanceAfter);
+            case TRANSFER_IN -> "Received: " + Money.format(amount) + " from Account: " + counterparty
+                    + ", New Balance: " + Money.format(balanceAfter);
+        };
+    }
+}
+
+// Bounded transaction history stored as parallel primitive columns in a
+// ring buffer. Appends allocate nothing; once full, the oldest entries are
+// overwritten and counted as dropped. Not thread-safe: the owning Account
+// guards it with its monitor.
+class TransactionLog {
+    private static final TransactionType[] TYPES = TransactionType.values();
+
+    private final long[] timestamps;
+    private final byte[] types;
+    private final long[] amounts;
+    private final long[] balances;
+    private final String[] counterparties;
+    private int head;  // Slot the next entry is written to
+    private int size;
+    private long droppedCount;
+
+    public TransactionLog(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        timestamps = new long[capacity];
+        types = new byte[capacity];
+        amounts = new long[capacity];
+        balances = new long[capacity];
+        counterparties = new String[capacity];
+    }
+
+    public void append(TransactionType type, long amount, long balanceAfter, String counterparty) {
+        long now = System.currentTimeMillis();
+        // Keep timestamps non-decreasing so time-range queries can binary search.
+        if (size > 0) {
+            now = Math.max(now, timestamps[physical(size - 1)]);
+        }
+        timestamps[head] = now;
+        types[head] = (byte) type.ordinal();
+        amounts[head] = amount;
+        balances[head] = balanceAfter;
+        counterparties[head] = counterparty;
+        head = (head + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        } else {
+            droppedCount++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    // One page of entries, newest first; page 0 holds the most recent entries.
+    public List<Transaction> page(int page, int pageSize) {
+        List<Transaction> result = new ArrayList<>();
+        if (page < 0 || pageSize <= 0) {
+            return result;
+        }
+        long first = (long) size - 1 - (long) page * pageSize;
+        for (long i = first; i >= 0 && i > first - pageSize; i--) {
+            result.add(read((int) i));
+        }
+        return result;
+    }
+
+    // Entries with fromMillis <= timestamp < toMillis, oldest first.
+    public List<Transaction> between(long fromMillis, long toMillis) {
+        List<Transaction> result = new ArrayList<>();
+        for (int i = lowerBound(fromMillis); i < size && timestamps[physical(i)] < toMillis; i++) {
+            result.add(read(i));
+        }
+        return result;
+    }
+
+    // First logical index whose timestamp is >= millis.
+    private int lowerBound(long millis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[physical(mid)] < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Transaction read(int logical) {
+        int slot = physical(logical);
+        return new Transaction(TYPES[types[slot]], timestamps[slot], amounts[slot], balances[slot], counterparties[slot]);
+    }
+
+    // Logical index 0 is the oldest retained entry.
+    private int physical(int logical) {
+        int capacity = timestamps.length;
+        return (head - size + logical + capacity) % capacity;
+    }
+}
+
+// Balance of one account rebuilt by BankJournal recovery.
+class RecoveredAccount {
+    private final long balance;
+    private final long lastSequence;
+
+    public RecoveredAccount(long balance, long lastSequence) {
+        this.balance = balance;
+        this.lastSequence = lastSequence;
+    }
+
+    public long getBalance() {
+        return balance;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+}
+
+// Durable write-ahead log of account opens, deposits, withdrawals and
+// transfers.
+//
+// Records are encoded into an in-memory batch under a short lock. A
+// committing thread that finds no flush in progress writes the whole batch
+// with one FileChannel write and one force(), so concurrent commits share a
+// single fsync. A checkpoint rotates to a new log segment, snapshots every
+// balance with the sequence number of the last record applied to it, and
+// deletes the older segments. Recovery loads the snapshot and replays only
+// the newer records from the log tail.
+class BankJournal implements Closeable {
+    static final byte OPEN = 1;
+    static final byte DEPOSIT = 2;
+    static final byte WITHDRAWAL = 3;
+    static final byte TRANSFER = 4;
+
+    // "BSN3": magic, high-water sequence, entries, entry count, CRC32 of all preceding bytes
+    private static final int SNAPSHOT_MAGIC = 0x42534E33;
+    private static final int SNAPSHOT_TRAILER = 8;  // Entry count + CRC32
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER = 8;  // Body length + CRC32 of body
+
+    private final Path directory;
+    private final Map<String, RecoveredAccount> recovered;
+    private final CRC32 crc = new CRC32();
+    // Serializes whole checkpoints, so two never write the temporary snapshot at once.
+    private final Object checkpointLock = new Object();
+    private FileChannel segment;
+    private long segmentNumber;
+    private ByteBuffer pending;
+    private ByteBuffer spare;
+    private long lastSequence;
+    private long durableSequence;
+    private boolean flushInProgress;
+    private IOException failure;
+    private long flushCount;
+    private long recordsSinceCheckpoint;
+
+    private BankJournal(Path directory) throws IOException {
+        this.directory = directory;
+        this.pending = ByteBuffer.allocate(64 * 1024);
+        this.spare = ByteBuffer.allocate(64 * 1024);
+        this.recovered = new HashMap<>();
+        recover();
+    }
+
+    public static BankJournal open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new BankJournal(directory);
+    }
+
+    // Balances as of the last durable record, keyed by account number.
+    public Map<String, RecoveredAccount> getRecoveredAccounts() {
+        return Collections.unmodifiableMap(recovered);
+    }
+
+    // Encode a record into the current batch; returns its sequence number.
+    // Callers hold the affected account monitors, so each account's records
+    // are logged in the order they were applied.
+    public synchronized long append(byte type, byte[] account, byte[] target, long amount) {
+        int bodyLength = 8 + 1 + 2 + account.length + 2 + (target == null ? 0 : target.length) + 8;
+        if (pending.remaining() < RECORD_HEADER + bodyLength) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + RECORD_HEADER + bodyLength));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        long sequence = ++lastSequence;
+        int start = pending.position();
+        pending.putInt(bodyLength).putInt(0);
+        pending.putLong(sequence).put(type);
+        pending.putShort((short) account.length).put(account);
+        if (target == null) {
+            pending.putShort((short) 0);
+        } else {
+            pending.putShort((short) target.length).put(target);
+        }
+        pending.putLong(amount);
+        crc.reset();
+        crc.update(pending.array(), start + RECORD_HEADER, bodyLength);
+        pending.putInt(start + 4, (int) crc.getValue());
+        recordsSinceCheckpoint++;
+        return sequence;
+    }
+
+    // Block until the record with this sequence number is on disk.
+    public void commit(long sequence) throws IOException {
+        ByteBuffer batch;
+        long batchEnd;
+        FileChannel channel;
+        synchronized (this) {
+            while (true) {
+                if (failure != null) {
+                    throw new IOException("Journal is unusable after an earlier write failure", failure);
+                }
+                if (durableSequence >= sequence) {
+                    return;
+                }
+                if (!flushInProgress) {
+                    break;
+                }
+                awaitFlush();
+            }
+            flushInProgress = true;
+            batch = pending;
+            pending = spare;
+            spare = null;
+            batchEnd = lastSequence;
+            channel = segment;
+        }
+        IOException error = null;
+        try {
+            writeFully(channel, batch);
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+        synchronized (this) {
+            batch.clear();
+            spare = batch;
+            flushInProgress = false;
+            if (error == null) {
+                durableSequence = batchEnd;
+                flushCount++;
+            } else {
+                failure = error;
+            }
+            notifyAll();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public synchronized long getRecordsSinceCheckpoint() {
+        return recordsSinceCheckpoint;
+    }
+
+    // Snapshot the given accounts and drop the log segments the snapshot covers.
+    public void checkpoint(Collection<Account> accounts) throws IOException {
+        synchronized (checkpointLock) {
+            writeCheckpoint(accounts);
+        }
+    }
+
+    private void writeCheckpoint(Collection<Account> accounts) throws IOException {
+        ByteBuffer batch;
+        long highWater;
+        FileChannel coveredChannel;
+        long coveredSegment;
+        synchronized (this) {
+            while (flushInProgress) {
+                awaitFlush();
+            }
+            if (failure != null) {
+                throw new IOException("Journal is unusable after an earlier write failure", failure);
+            }
+            // Take the flush over as commit() does, so appends carry on into the
+            // next batch while the old segment is finished and rotated unlocked.
+            // Every record appended so far is applied to its account, so the
+            // snapshot taken below includes all of them.
+            flushInProgress = true;
+            batch = pending;
+            pending = spare;
+            spare = null;
+            highWater = lastSequence;
+            coveredChannel = segment;
+            coveredSegment = segmentNumber;
+            recordsSinceCheckpoint = 0;
+        }
+        FileChannel next = null;
+        IOException error = null;
+        try {
+            writeFully(coveredChannel, batch);
+            coveredChannel.force(false);
+            coveredChannel.close();
+            next = openSegment(coveredSegment + 1);
+        } catch (IOException e) {
+            error = e;
+        }
+        synchronized (this) {
+            batch.clear();
+            spare = batch;
+            flushInProgress = false;
+            if (error == null) {
+                segment = next;
+                segmentNumber = coveredSegment + 1;
+                durableSequence = highWater;
+                flushCount++;
+            } else {
+                failure = error;
+            }
+            notifyAll();
+        }
+        if (error != null) {
+            throw error;
+        }
+
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            CRC32 checksum = new CRC32();
+            buffer.putInt(SNAPSHOT_MAGIC).putLong(highWater);
+            int count = 0;
+            Set<String> written = new HashSet<>();
+            for (Account account : accounts) {
+                byte[] key = account.getJournalKey();
+                if (buffer.remaining() < 2 + key.length + 16) {
+                    writeChecksummed(out, buffer, checksum);
+                }
+                buffer.putShort((short) key.length).put(key);
+                account.writeSnapshot(buffer);
+                written.add(account.getAccountNumber());
+                count++;
+            }
+            // Keep recovered accounts nobody has registered again this run.
+            for (Map.Entry<String, RecoveredAccount> entry : recovered.entrySet()) {
+                if (written.contains(entry.getKey())) {
+                    continue;
+                }
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < 2 + key.length + 16) {
+                    writeChecksummed(out, buffer, checksum);
+                }
+                buffer.putShort((short) key.length).put(key);
+                buffer.putLong(entry.getValue().getBalance()).putLong(entry.getValue().getLastSequence());
+                count++;
+            }
+            if (buffer.remaining() < SNAPSHOT_TRAILER) {
+                writeChecksummed(out, buffer, checksum);
+            }
+            buffer.putInt(count);
+            writeChecksummed(out, buffer, checksum);
+            buffer.putInt((int) checksum.getValue());
+            writeFully(out, buffer);
+            out.force(true);
+        }
+        Files.move(temp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        for (long number : listSegments()) {
+            if (number <= coveredSegment) {
+                Files.deleteIfExists(segmentPath(number));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            while (flushInProgress) {
+                awaitFlush();
+            }
+            if (failure == null && pending.position() > 0) {
+                writeFully(segment, pending);
+                pending.clear();
+                segment.force(false);
+                durableSequence = lastSequence;
+            }
+            segment.close();
+        }
+    }
+
+    private void recover() throws IOException {
+        Map<String, Long> snapshotSequences = new HashMap<>();
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            try (FileChannel in = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+                ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                int end = buffer.limit() - SNAPSHOT_TRAILER;
+                if (end < 12 || buffer.getInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Not a bank snapshot: " + snapshot);
+                }
+                CRC32 checksum = new CRC32();
+                checksum.update(buffer.duplicate().position(0).limit(end + 4));
+                if ((int) checksum.getValue() != buffer.getInt(end + 4)) {
+                    throw new IOException("Corrupt bank snapshot: " + snapshot);
+                }
+                lastSequence = buffer.getLong();
+                int count = buffer.getInt(end);
+                buffer.limit(end);
+                for (int i = 0; i < count; i++) {
+                    String accountNumber = readString(buffer);
+                    long balance = buffer.getLong();
+                    long sequence = buffer.getLong();
+                    recovered.put(accountNumber, new RecoveredAccount(balance, sequence));
+                    snapshotSequences.put(accountNumber, sequence);
+                    lastSequence = Math.max(lastSequence, sequence);
+                }
+            }
+        }
+
+        List<Long> segments = listSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            replaySegment(segments.get(i), snapshotSequences, i == segments.size() - 1);
+        }
+        segmentNumber = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+        segment = openSegment(segmentNumber);
+        durableSequence = lastSequence;
+    }
+
+    private void replaySegment(long number, Map<String, Long> snapshotSequences, boolean last) throws IOException {
+        Path path = segmentPath(number);
+        long validEnd = 0;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            while (buffer.remaining() >= RECORD_HEADER) {
+                int start = buffer.position();
+                int bodyLength = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (bodyLength <= 0 || bodyLength > buffer.remaining()) {
+                    break;
+                }
+                byte[] body = new byte[bodyLength];
+                buffer.get(body);
+                crc.reset();
+                crc.update(body, 0, bodyLength);
+                if ((int) crc.getValue() != checksum) {
+                    buffer.position(start);
+                    break;
+                }
+                applyRecord(ByteBuffer.wrap(body), snapshotSequences);
+                validEnd = buffer.position();
+            }
+            if (buffer.hasRemaining() && !last) {
+                throw new IOException("Corrupt record in " + path + " at offset " + validEnd);
+            }
+        }
+        if (last && Files.size(path) > validEnd) {
+            // Drop a record torn by a crash mid-write.
+            try (FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                out.truncate(validEnd);
+            }
+        }
+    }
+
+    private void applyRecord(ByteBuffer body, Map<String, Long> snapshotSequences) {
+        long sequence = body.getLong();
+        byte type = body.get();
+        String account = readString(body);
+        String target = readString(body);
+        long amount = body.getLong();
+        lastSequence = Math.max(lastSequence, sequence);
+        switch (type) {
+            case OPEN -> applyDelta(account, sequence, amount, true, snapshotSequences);
+            case DEPOSIT -> applyDelta(account, sequence, amount, false, snapshotSequences);
+            case WITHDRAWAL -> applyDelta(account, sequence, -amount, false, snapshotSequences);
+            case TRANSFER -> {
+                applyDelta(account, sequence, -amount, false, snapshotSequences);
+                applyDelta(target, sequence, amount, false, snapshotSequences);
+            }
+            default -> throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    private void applyDelta(String account, long sequence, long amount, boolean absolute,
+            Map<String, Long> snapshotSequences) {
+        if (sequence <= snapshotSequences.getOrDefault(account, 0L)) {
+            return;  // Already included in the snapshot balance
+        }
+        RecoveredAccount current = recovered.get(account);
+        long balance = absolute || current == null ? amount : Money.add(current.getBalance(), amount);
+        recovered.put(account, new RecoveredAccount(balance, sequence));
+    }
+
+    private void awaitFlush() throws IOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for journal flush");
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                numbers.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    // Write and clear the buffer, folding the bytes written into checksum.
+    private static void writeChecksummed(FileChannel channel, ByteBuffer buffer, CRC32 checksum) throws IOException {
+        checksum.update(buffer.duplicate().flip());
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
+
+// Every balance change runs under the account's own monitor, so updates to
+// one account are atomic and unrelated accounts never contend.
 class Account {
+    private static final AtomicLong LOCK_ORDER_SEQUENCE = new AtomicLong();
+    // History keeps only the most recent entries; older ones are counted, not kept.
+    private static final int HISTORY_CAPACITY = 1024;
+
     private final String accountNumber;
-    private double balance;
-    private final List<String> transactionHistory;
+    private final byte[] journalKey;
+    private final long lockOrder;  // Global order in which account monitors are acquired
+    private final BankJournal journal;  // Null for accounts that are not persisted
+    private long balance;  // Minor units, see Money
+    private long lastJournalSequence;  // Last journal record applied to this account
+    private final TransactionLog transactionLog;
+
+    public Account(String accountNumber, long initialBalance) {
+        this(accountNumber, initialBalance, null, 0);
+    }
 
-    public Account(String accountNumber, double initialBalance) {
+    Account(String accountNumber, long balance, BankJournal journal, long lastJournalSequence) {
         this.accountNumber = accountNumber;
-        this.balance = initialBalance;
-        this.transactionHistory = new ArrayList<>();
-        transactionHistory.add("Account created with balance: " + initialBalance);
+        this.journalKey = accountNumber.getBytes(StandardCharsets.UTF_8);
+        this.lockOrder = LOCK_ORDER_SEQUENCE.incrementAndGet();
+        this.journal = journal;
+        this.balance = balance;
+        this.lastJournalSequence = lastJournalSequence;
+        this.transactionLog = new TransactionLog(HISTORY_CAPACITY);
+        transactionLog.append(TransactionType.OPENED, balance, balance, null);
+    }
+
+    // Create a new persisted account, register it in accounts under its
+    // number and make its opening balance durable. Returns null, journaling
+    // nothing, if the number is already taken. The account is published
+    // under its own monitor, so nothing can be journaled for it ahead of OPEN.
+    static Account open(String accountNumber, long initialBalance, BankJournal journal, Map<String, Account> accounts) {
+        Account account = new Account(accountNumber, initialBalance, journal, 0);
+        long sequence;
+        synchronized (account) {
+            if (accounts.putIfAbsent(accountNumber, account) != null) {
+                return null;
+            }
+            sequence = account.log(BankJournal.OPEN, null, initialBalance);
+        }
+        account.commit(sequence);
+        return account;
     }
 
     public String getAccountNumber() {
         return accountNumber;
     }
 
-    public double getBalance() {
+    byte[] getJournalKey() {
+        return journalKey;
+    }
+
+    synchronized void writeSnapshot(ByteBuffer buffer) {
+        buffer.putLong(balance).putLong(lastJournalSequence);
+    }
+
+    public synchronized long getBalance() {
         return balance;
     }
 
-    public List<String> getTransactionHistory() {
-        return transactionHistory;
+    // One page of history, most recent first.
+    public synchronized List<Transaction> getTransactionHistory(int page, int pageSize) {
+        return transactionLog.page(page, pageSize);
+    }
+
+    public synchronized List<Transaction> getTransactionsBetween(long fromMillis, long toMillis) {
+        return transactionLog.between(fromMillis, toMillis);
+    }
+
+    public synchronized int getTransactionCount() {
+        return transactionLog.size();
+    }
+
+    // Entries evicted from the bounded history, which can no longer be shown.
+    public synchronized long getDroppedTransactionCount() {
+        return transactionLog.getDroppedCount();
+    }
+
+    // Changes are applied and journaled under the monitor, then committed
+    // after releasing it so other threads can join the same fsync. Each
+    // operation refuses an amount that is not positive.
+    public boolean deposit(long amount) {
+        if (amount <= 0) {
+            return false;
+        }
+        long sequence;
+        synchronized (this) {
+            balance = Money.add(balance, amount);
+            transactionLog.append(TransactionType.DEPOSIT, amount, balance, null);
+            sequence = log(BankJournal.DEPOSIT, null, amount);
+        }
+        commit(sequence);
+        return true;
     }
 
-    public void deposit(double amount) {
-        balance += amount;
-        transactionHistory.add("Deposited: " + amount + ", New Balance: " + balance);
+    public boolean withdraw(long amount) {
+        if (amount <= 0) {
+            return false;
+        }
+        long sequence;
+        synchronized (this) {
+            if (amount > balance) {
+                transactionLog.append(TransactionType.WITHDRAWAL_FAILED, amount, balance, null);
+                return false;
+            }
+            balance = Money.subtract(balance, amount);
+            transactionLog.append(TransactionType.WITHDRAWAL, amount, balance, null);
+            sequence = log(BankJournal.WITHDRAWAL, null, amount);
+        }
+        commit(sequence);
+        return true;
     }
 
-    public boolean withdraw(double amount) {
-        if (amount > balance) {
-            transactionHistory.add("Withdrawal attempt failed: " + amount + ", Insufficient funds.");
+    // Both monitors are held for the whole transfer, so no reader sees the
+    // money in neither account. They are always taken in lockOrder, so
+    // concurrent A->B and B->A transfers cannot deadlock.
+    public boolean transfer(Account targetAccount, long amount) {
+        if (targetAccount == this || amount <= 0) {
             return false;
         }
-        balance -= amount;
-        transactionHistory.add("Withdrew: " + amount + ", New Balance: " + balance);
+        Account first = lockOrder < targetAccount.lockOrder ? this : targetAccount;
+        Account second = first == this ? targetAccount : this;
+        long sequence;
+        synchronized (first) {
+            synchronized (second) {
+                if (amount > balance) {
+                    transactionLog.append(TransactionType.WITHDRAWAL_FAILED, amount, balance, null);
+                    return false;
+                }
+                targetAccount.balance = Money.add(targetAccount.balance, amount);
+                balance = Money.subtract(balance, amount);
+                transactionLog.append(TransactionType.TRANSFER_OUT, amount, balance, targetAccount.accountNumber);
+                targetAccount.transactionLog.append(TransactionType.TRANSFER_IN, amount, targetAccount.balance, accountNumber);
+                sequence = log(BankJournal.TRANSFER, targetAccount, amount);
+            }
+        }
+        commit(sequence);
         return true;
     }
 
-    public boolean transfer(Account targetAccount, double amount) {
-        if (withdraw(amount)) {
-            targetAccount.deposit(amount);
-            transactionHistory.add("Transferred: " + amount + " to Account: " + targetAccount.getAccountNumber());
-            return true;
+    // Caller holds this account's monitor, and the target's for transfers.
+    private long log(byte type, Account target, long amount) {
+        if (journal == null) {
+            return 0;
+        }
+        long sequence = journal.append(type, journalKey, target == null ? null : target.journalKey, amount);
+        lastJournalSequence = sequence;
+        if (target != null) {
+            target.lastJournalSequence = sequence;
+        }
+        return sequence;
+    }
+
+    private void commit(long sequence) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.commit(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return false;
     }
 }
 
-class BankSystem {
+class BankSystem implements Closeable {
+    private static final int LOGIN_CACHE_CAPACITY = 10_000;
+    private static final long LOGIN_CACHE_TTL_MILLIS = 15 * 60 * 1000;
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;  // Wait for a running checkpoint on close
+
+    // ConcurrentHashMap locks per bin, so registrations and lookups of
+    // unrelated users do not contend.
     Map<String, User> users;
+    // Secondary index so transfers resolve the target account directly.
+    private final Map<String, Account> accountsByNumber;
+    private final BankJournal journal;  // Null when balances are kept in memory only
+    private final ScheduledExecutorService checkpointer;
+    private final PasswordHasher passwordHasher;
+    private final LoginCache loginCache;
+    // Verified against when the username is unknown, so timing does not reveal which users exist.
+    private final PasswordHash unknownUserHash;
 
     public BankSystem() {
-        users = new HashMap<>();
+        this(PasswordHasher.DEFAULT_ITERATIONS);
+    }
+
+    // passwordIterations is the PBKDF2 cost for newly added users.
+    public BankSystem(int passwordIterations) {
+        users = new ConcurrentHashMap<>();
+        accountsByNumber = new ConcurrentHashMap<>();
+        journal = null;
+        checkpointer = null;
+        passwordHasher = new PasswordHasher(passwordIterations);
+        loginCache = new LoginCache(LOGIN_CACHE_CAPACITY, LOGIN_CACHE_TTL_MILLIS);
+        unknownUserHash = passwordHasher.hash("");
     }
 
-    public void addUser(String username, String password, String accountNumber, double initialBalance) {
-        Account newAccount = new Account(accountNumber, initialBalance);
-        User newUser = new User(username, password, newAccount);
-        users.put(username, newUser);
+    // Persist balances to the journal and snapshot them every checkpointIntervalMillis.
+    public BankSystem(BankJournal journal, long checkpointIntervalMillis) {
+        users = new ConcurrentHashMap<>();
+        accountsByNumber = new ConcurrentHashMap<>();
+        this.journal = journal;
+        passwordHasher = new PasswordHasher(PasswordHasher.DEFAULT_ITERATIONS);
+        loginCache = new LoginCache(LOGIN_CACHE_CAPACITY, LOGIN_CACHE_TTL_MILLIS);
+        unknownUserHash = passwordHasher.hash("");
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bank-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(() -> {
+            if (journal.getRecordsSinceCheckpoint() > 0) {
+                try {
+                    checkpoint();
+                } catch (IOException e) {
+                    System.err.println("Checkpoint failed: " + e.getMessage());
+                }
+            }
+        }, checkpointIntervalMillis, checkpointIntervalMillis, TimeUnit.MILLISECONDS);
     }
 
+    // Existing accounts keep their recovered balance; initialBalance only applies to new ones.
+    // Returns false, changing nothing, if the username or the account number is already in use.
+    public boolean addUser(String username, String password, String accountNumber, long initialBalance) {
+        PasswordHash passwordHash = passwordHasher.hash(password);
+        // The account is registered inside computeIfAbsent, so two registrations
+        // of one username cannot both claim an account.
+        User[] created = new User[1];
+        users.computeIfAbsent(username, name -> {
+            Account account = registerAccount(accountNumber, initialBalance);
+            created[0] = account == null ? null : new User(name, passwordHash, account);
+            return created[0];
+        });
+        if (created[0] == null) {
+            return false;
+        }
+        // After publishing, so a racing login cannot cache the previous credentials again.
+        loginCache.invalidate(username);
+        return true;
+    }
+
+    // The account registered under accountNumber, or null if the number is taken.
+    private Account registerAccount(String accountNumber, long initialBalance) {
+        RecoveredAccount recovered = journal == null ? null : journal.getRecoveredAccounts().get(accountNumber);
+        if (journal != null && recovered == null) {
+            // A new persisted account registers itself before journaling its opening balance.
+            return Account.open(accountNumber, initialBalance, journal, accountsByNumber);
+        }
+        Account account = recovered != null
+                ? new Account(accountNumber, recovered.getBalance(), journal, recovered.getLastSequence())
+                : new Account(accountNumber, initialBalance);
+        return accountsByNumber.putIfAbsent(accountNumber, account) == null ? account : null;
+    }
+
+    public Account findAccount(String accountNumber) {
+        return accountNumber == null ? null : accountsByNumber.get(accountNumber);
+    }
+
+    public void checkpoint() throws IOException {
+        if (journal != null) {
+            journal.checkpoint(accountsByNumber.values());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            // Let a running checkpoint finish: interrupting it would close the
+            // journal's channel under it. Checkpoints are serialized anyway.
+            checkpointer.shutdown();
+            try {
+                checkpointer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            checkpoint();
+            journal.close();
+        }
+    }
+
+    // Repeat logins within the cache TTL are checked against the login cache;
+    // everything else pays the full KDF cost.
     public User authenticateUser(String username, String password) {
         User user = users.get(username);
-        if (user != null && user.checkPassword(password)) {
+        if (user == null) {
+            PasswordHasher.verify(password, unknownUserHash);
+            return null;
+        }
+        if (loginCache.matches(username, password)) {
+            return user;
+        }
+        if (user.checkPassword(password)) {
+            loginCache.remember(username, password);
             return user;
         }
         return null;
     }
 }
 
+// Multi-threaded benchmark for concurrent deposits and withdrawals.
+// Run with: java LedgerBenchmark [accounts] [threads] [opsPerThread]
+class LedgerBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int accountCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 2;
+        int opsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 500_000;
+        long initialBalance = Money.ofUnits(1_000);
+
+        // Logins are not measured here, so use the cheapest password hashing.
+        BankSystem bankSystem = new BankSystem(1);
+        Account[] accounts = new Account[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            String accountNumber = String.valueOf(100_000_000 + i);
+            bankSystem.addUser("user" + i, "password" + i, accountNumber, initialBalance);
+            accounts[i] = bankSystem.users.get("user" + i).getAccount();
+        }
+
+        // Money is exact, so any mismatch in the final total is a lost update.
+        LongAdder netChange = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long change = 0;
+                try {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        Account account = accounts[random.nextInt(accounts.length)];
+                        long amount = random.nextLong(1, 5_000);
+                        if (random.nextBoolean()) {
+                            account.deposit(amount);
+                            change += amount;
+                        } else if (account.withdraw(amount)) {
+                            change -= amount;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    netChange.add(change);
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - startTime;
+
+        long total = 0;
+        for (Account account : accounts) {
+            total += account.getBalance();
+        }
+        long expected = accountCount * initialBalance + netChange.sum();
+        System.out.printf("%d threads, %d accounts: %.0f ops/sec, lost updates: %s%n",
+                threads, accountCount, (double) threads * opsPerThread / (elapsed / 1_000_000_000.0),
+                total == expected ? "none" : "balance off by " + Money.format(total - expected));
+    }
+}
+
+// Randomized cross-transfers between accounts from many threads.
+// Run with: java TransferBenchmark [accounts] [threads] [transfersPerThread]
+class TransferBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int accountCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 2;
+        int transfersPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        long initialBalance = Money.ofUnits(1_000);
+
+        Account[] accounts = new Account[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accounts[i] = new Account(String.valueOf(100_000_000 + i), initialBalance);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicLong completed = new AtomicLong();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long succeeded = 0;
+                try {
+                    start.await();
+                    for (int i = 0; i < transfersPerThread; i++) {
+                        Account from = accounts[random.nextInt(accounts.length)];
+                        Account to = accounts[random.nextInt(accounts.length)];
+                        if (from.transfer(to, random.nextLong(1, 10_000))) {
+                            succeeded++;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    completed.addAndGet(succeeded);
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - startTime;
+
+        long total = 0;
+        for (Account account : accounts) {
+            total += account.getBalance();
+        }
+        long expected = accountCount * initialBalance;
+        System.out.printf("%d threads, %d accounts: %.0f transfers/sec (%d succeeded), money conserved: %s%n",
+                threads, accountCount, (double) threads * transfersPerThread / (elapsed / 1_000_000_000.0),
+                completed.get(), total == expected ? "yes" : "NO, off by " + Money.format(total - expected));
+    }
+}
+
+// Login throughput under concurrency: first logins pay the KDF, repeat
+// logins are served by the login cache.
+// Run with: java LoginBenchmark [iterations] [users] [threads] [loginsPerThread]
+class LoginBenchmark {
+    public static void main(String[] args) throws InterruptedException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : PasswordHasher.DEFAULT_ITERATIONS;
+        int userCount = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors() * 2;
+        int loginsPerThread = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+
+        BankSystem bankSystem = new BankSystem(iterations);
+        for (int i = 0; i < userCount; i++) {
+            bankSystem.addUser("user" + i, "password" + i, String.valueOf(100_000_000 + i), 0);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < userCount; i++) {
+            if (bankSystem.authenticateUser("user" + i, "password" + i) == null) {
+                throw new IllegalStateException("Login failed for user" + i);
+            }
+        }
+        double coldMillis = (System.nanoTime() - start) / 1_000_000.0 / userCount;
+
+        AtomicLong failures = new AtomicLong();
+        CountDownLatch ready = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    ready.await();
+                    for (int i = 0; i < loginsPerThread; i++) {
+                        int user = random.nextInt(userCount);
+                        if (bankSystem.authenticateUser("user" + user, "password" + user) == null) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start = System.nanoTime();
+        ready.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        long logins = (long) threads * loginsPerThread;
+        System.out.printf("PBKDF2 %d iterations: first login %.1f ms; repeat logins %.0f/sec (%.1f us each) on %d threads, failures: %d%n",
+                iterations, coldMillis, logins / (elapsed / 1_000_000_000.0),
+                elapsed / 1_000.0 / loginsPerThread, threads, failures.get());
+    }
+}
+
+// Journal commit throughput as concurrent committers grow the group-commit batch.
+// Run with: java JournalBenchmark [depositsPerThread] [maxThreads]
+class JournalBenchmark {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int depositsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        System.out.println("threads, commits/sec, records per fsync");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            Path directory = Files.createTempDirectory("bank-journal");
+            try (BankJournal journal = BankJournal.open(directory)) {
+                Account[] accounts = new Account[threads];
+                Map<String, Account> accountsByNumber = new HashMap<>();
+                for (int i = 0; i < threads; i++) {
+                    accounts[i] = Account.open(String.valueOf(100_000_000 + i), 0, journal, accountsByNumber);
+                }
+                long flushesBefore = journal.getFlushCount();
+
+                CountDownLatch start = new CountDownLatch(1);
+                CountDownLatch done = new CountDownLatch(threads);
+                for (Account account : accounts) {
+                    new Thread(() -> {
+                        try {
+                            start.await();
+                            for (int i = 0; i < depositsPerThread; i++) {
+                                account.deposit(Money.ofUnits(1));
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            done.countDown();
+                        }
+                    }).start();
+                }
+                long startTime = System.nanoTime();
+                start.countDown();
+                done.await();
+                long elapsed = System.nanoTime() - startTime;
+
+                long commits = (long) threads * depositsPerThread;
+                long flushes = Math.max(1, journal.getFlushCount() - flushesBefore);
+                System.out.printf("%d, %.0f, %.1f%n", threads, commits / (elapsed / 1_000_000_000.0), (double) commits / flushes);
+            } finally {
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
+
 public class OnlineBankingSystem {
+    private static final int HISTORY_PAGE_SIZE = 20;
+    private static final Path DATA_DIRECTORY = Path.of("bank-data");
+    private static final long CHECKPOINT_INTERVAL_MILLIS = 60_000;
+
     public static void main(String[] args) {
-        BankSystem bankSystem = new BankSystem();
+        BankSystem bankSystem;
+        try {
+            bankSystem = new BankSystem(BankJournal.open(DATA_DIRECTORY), CHECKPOINT_INTERVAL_MILLIS);
+        } catch (IOException e) {
+            System.out.println("Could not open bank data: " + e.getMessage());
+            return;
+        }
         // Adding some users
-        try (Scanner scanner = new Scanner(System.in)) {
+        try (bankSystem; Scanner scanner = new Scanner(System.in)) {
             // Adding some users
-            bankSystem.addUser("john_doe", "password123", "123456789", 1000.00);
-            bankSystem.addUser("jane_doe", "password456", "987654321", 2000.00);
+            bankSystem.addUser("john_doe", "password123", "123456789", Money.ofUnits(1000));
+            bankSystem.addUser("jane_doe", "password456", "987654321", Money.ofUnits(2000));
             
             // User login
             System.out.print("Enter username: ");
@@ -130,17 +1389,22 @@ public class OnlineBankingSystem {
                     int choice = scanner.nextInt();
                     
                     switch (choice) {
-                        case 1 -> System.out.println("Current Balance: " + user.getAccount().getBalance());
+                        case 1 -> System.out.println("Current Balance: " + Money.format(user.getAccount().getBalance()));
                         case 2 -> {
                             System.out.print("Enter amount to deposit: ");
-                            double depositAmount = scanner.nextDouble();
-                            user.getAccount().deposit(depositAmount);
-                            System.out.println("Deposit successful.");
+                            long depositAmount = Money.parse(scanner.next());
+                            if (user.getAccount().deposit(depositAmount)) {
+                                System.out.println("Deposit successful.");
+                            } else {
+                                System.out.println("Amount must be positive.");
+                            }
                         }
                         case 3 -> {
                             System.out.print("Enter amount to withdraw: ");
-                            double withdrawAmount = scanner.nextDouble();
-                            if (user.getAccount().withdraw(withdrawAmount)) {
+                            long withdrawAmount = Money.parse(scanner.next());
+                            if (withdrawAmount <= 0) {
+                                System.out.println("Amount must be positive.");
+                            } else if (user.getAccount().withdraw(withdrawAmount)) {
                                 System.out.println("Withdrawal successful.");
                             } else {
                                 System.out.println("Insufficient funds.");
@@ -151,25 +1415,28 @@ public class OnlineBankingSystem {
                             scanner.nextLine();  // Consume newline
                             String targetAccountNumber = scanner.nextLine();
                             System.out.print("Enter amount to transfer: ");
-                            double transferAmount = scanner.nextDouble();
-                            User targetUser = null;
-                            for (User u : bankSystem.users.values()) {
-                                if (u.getAccount().getAccountNumber().equals(targetAccountNumber)) {
-                                    targetUser = u;
-                                    break;
-                                }
-                            }
-                            if (targetUser != null && user.getAccount().transfer(targetUser.getAccount(), transferAmount)) {
+                            long transferAmount = Money.parse(scanner.next());
+                            Account targetAccount = bankSystem.findAccount(targetAccountNumber);
+                            if (targetAccount != null && user.getAccount().transfer(targetAccount, transferAmount)) {
                                 System.out.println("Transfer successful.");
                             } else {
                                 System.out.println("Transfer failed.");
                             }
                         }
                         case 5 -> {
-                            System.out.println("Transaction History:");
-                            for (String transaction : user.getAccount().getTransactionHistory()) {
+                            System.out.println("Transaction History (most recent first):");
+                            for (Transaction transaction : user.getAccount().getTransactionHistory(0, HISTORY_PAGE_SIZE)) {
                                 System.out.println(transaction);
                             }
+                            int total = user.getAccount().getTransactionCount();
+                            if (total > HISTORY_PAGE_SIZE) {
+                                System.out.println("(showing " + HISTORY_PAGE_SIZE + " of " + total + " transactions)");
+                            }
+                            long dropped = user.getAccount().getDroppedTransactionCount();
+                            if (dropped > 0) {
+                                System.out.println(dropped + " older transactions not shown (only the last " + total
+                                        + " are kept)");
+                            }
                         }
                         case 6 -> {
                             exit = true;
@@ -181,6 +1448,8 @@ public class OnlineBankingSystem {
             } else {
                 System.out.println("Login failed. Invalid username or password.");
             }
+        } catch (IOException e) {
+            System.out.println("Could not save bank data: " + e.getMessage());
         }
     }
 }
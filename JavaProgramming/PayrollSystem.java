@@ -1,15 +1,41 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
 
 class Employee {
     private final int id;
     private final String name;
-    private final double basicSalary;
-    private int attendance;  // Number of days attended in a month
-    private final double taxRate;  // Tax rate in percentage
+    private final long basicSalary;  // Monthly salary in minor units, see Money
+    private volatile int attendance;  // Number of days attended in a month
+    private final int taxRate;  // Tax rate in basis points (1000 = 10%)
+    private volatile Payslip payslip;  // Cached result for the current attendance
 
-    public Employee(int id, String name, double basicSalary, double taxRate) {
+    public Employee(int id, String name, long basicSalary, int taxRate) {
         this.id = id;
         this.name = name;
         this.basicSalary = basicSalary;
@@ -25,11 +51,11 @@ class Employee {
         return name;
     }
 
-    public double getBasicSalary() {
+    public long getBasicSalary() {
         return basicSalary;
     }
 
-    public double getTaxRate() {
+    public int getTaxRate() {
         return taxRate;
     }
 
@@ -37,53 +63,1186 @@ class Employee {
         return attendance;
     }
 
-    public void setAttendance(int attendance) {
+    public synchronized void setAttendance(int attendance) {
         this.attendance = attendance;
+        this.payslip = null;
+    }
+
+    // A cached payslip is only valid for the rule set it was computed with.
+    Payslip getCachedPayslip(TaxRules taxRules) {
+        Payslip cached = payslip;
+        return cached != null && cached.getTaxRules() == taxRules ? cached : null;
+    }
+
+    // Attendance is the only mutable input, so a payslip computed for the
+    // current attendance stays valid until setAttendance is called again.
+    synchronized void cachePayslip(Payslip payslip) {
+        if (payslip.getAttendance() == attendance) {
+            this.payslip = payslip;
+        }
     }
 
     @Override
     public String toString() {
-        return "Employee ID: " + id + ", Name: " + name + ", Basic Salary: $" + basicSalary + ", Attendance: " + attendance + " days";
+        return "Employee ID: " + id + ", Name: " + name + ", Basic Salary: $" + Money.format(basicSalary) + ", Attendance: " + attendance + " days";
+    }
+}
+
+// Compiled progressive tax rule set: a tax-free allowance, brackets and
+// post-tax deductions. Brackets are stored as sorted threshold and rate
+// arrays with the tax owed below each threshold precomputed, so evaluating
+// an employee is one binary search and a few array reads, with no allocation.
+// Instances are immutable and safe to share across payroll threads.
+final class TaxRules {
+    private final long allowance;  // Tax-free amount taken off gross before brackets apply
+    private final long[] thresholds;  // Lower bound of each bracket, ascending, first is 0
+    private final int[] rates;  // Bracket rates in basis points
+    private final long[] baseTax;  // Tax owed on taxable income up to each threshold
+    private final int deductionRate;  // Post-tax deduction in basis points of gross
+    private final long fixedDeduction;  // Post-tax deduction per payslip
+
+    private TaxRules(long allowance, long[] thresholds, int[] rates, int deductionRate, long fixedDeduction) {
+        this.allowance = allowance;
+        this.thresholds = thresholds;
+        this.rates = rates;
+        this.deductionRate = deductionRate;
+        this.fixedDeduction = fixedDeduction;
+        this.baseTax = new long[thresholds.length];
+        for (int i = 1; i < thresholds.length; i++) {
+            baseTax[i] = Money.add(baseTax[i - 1],
+                    Money.applyRate(thresholds[i] - thresholds[i - 1], rates[i - 1], RoundingMode.HALF_EVEN));
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public long tax(long grossSalary) {
+        long taxable = Math.max(0, grossSalary - allowance);
+        int bracket = Arrays.binarySearch(thresholds, taxable);
+        if (bracket < 0) {
+            bracket = -bracket - 2;
+        }
+        return baseTax[bracket] + Money.applyRate(taxable - thresholds[bracket], rates[bracket], RoundingMode.HALF_EVEN);
+    }
+
+    // Deductions never take net pay below zero.
+    public long deductions(long grossSalary, long tax) {
+        long deductions = Money.add(Money.applyRate(grossSalary, deductionRate, RoundingMode.HALF_EVEN), fixedDeduction);
+        return Math.min(deductions, Math.max(0, grossSalary - tax));
+    }
+
+    static final class Builder {
+        private final List<long[]> brackets = new ArrayList<>();
+        private long allowance;
+        private int deductionRate;
+        private long fixedDeduction;
+
+        public Builder allowance(long amount) {
+            this.allowance = amount;
+            return this;
+        }
+
+        // Taxable income from `from` upwards is taxed at rate basis points, up to the next bracket.
+        public Builder bracket(long from, int rate) {
+            brackets.add(new long[] {from, rate});
+            return this;
+        }
+
+        public Builder deductionRate(int rate) {
+            this.deductionRate = rate;
+            return this;
+        }
+
+        public Builder fixedDeduction(long amount) {
+            this.fixedDeduction = amount;
+            return this;
+        }
+
+        public TaxRules build() {
+            if (allowance < 0 || deductionRate < 0 || fixedDeduction < 0) {
+                throw new IllegalArgumentException("Allowance and deductions must not be negative");
+            }
+            if (deductionRate > Money.BASIS_POINTS) {
+                throw new IllegalArgumentException("Deduction rate above 100%: " + deductionRate + " basis points");
+            }
+            for (long[] bracket : brackets) {
+                if (bracket[0] < 0 || bracket[1] < 0 || bracket[1] > Money.BASIS_POINTS) {
+                    throw new IllegalArgumentException("Invalid tax bracket: " + bracket[1] + " basis points from "
+                            + Money.format(bracket[0]));
+                }
+            }
+            List<long[]> sorted = new ArrayList<>(brackets);
+            sorted.sort(Comparator.comparingLong(bracket -> bracket[0]));
+            if (sorted.isEmpty() || sorted.get(0)[0] != 0) {
+                sorted.add(0, new long[] {0, 0});
+            }
+            long[] thresholds = new long[sorted.size()];
+            int[] rates = new int[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                thresholds[i] = sorted.get(i)[0];
+                rates[i] = (int) sorted.get(i)[1];
+                if (i > 0 && thresholds[i] == thresholds[i - 1]) {
+                    throw new IllegalArgumentException("Duplicate tax bracket starting at " + Money.format(thresholds[i]));
+                }
+            }
+            return new TaxRules(allowance, thresholds, rates, deductionRate, fixedDeduction);
+        }
+    }
+}
+
+// Immutable result of one employee's payroll calculation.
+class Payslip {
+    private final int employeeId;
+    private final String employeeName;
+    private final long basicSalary;
+    private final int attendance;
+    private final long grossSalary;
+    private final long tax;
+    private final long deductions;
+    private final long netSalary;
+    private final TaxRules taxRules;  // Rule set used, or null for the employee's flat rate
+
+    public Payslip(int employeeId, String employeeName, long basicSalary, int attendance,
+                   long grossSalary, long tax, long deductions, long netSalary, TaxRules taxRules) {
+        this.employeeId = employeeId;
+        this.employeeName = employeeName;
+        this.basicSalary = basicSalary;
+        this.attendance = attendance;
+        this.grossSalary = grossSalary;
+        this.tax = tax;
+        this.deductions = deductions;
+        this.netSalary = netSalary;
+        this.taxRules = taxRules;
+    }
+
+    public int getEmployeeId() {
+        return employeeId;
+    }
+
+    public String getEmployeeName() {
+        return employeeName;
+    }
+
+    public long getBasicSalary() {
+        return basicSalary;
+    }
+
+    public int getAttendance() {
+        return attendance;
+    }
+
+    public long getGrossSalary() {
+        return grossSalary;
+    }
+
+    public long getTax() {
+        return tax;
+    }
+
+    public long getDeductions() {
+        return deductions;
+    }
+
+    public long getNetSalary() {
+        return netSalary;
+    }
+
+    public TaxRules getTaxRules() {
+        return taxRules;
     }
 }
+
+// Payslips from one batch payroll run plus its throughput and latency figures.
+class PayrollRun {
+    private final List<Payslip> payslips;
+    private final long elapsedNanos;
+    private final long[] sortedLatencyNanos;
+
+    public PayrollRun(List<Payslip> payslips, long elapsedNanos, long[] sortedLatencyNanos) {
+        this.payslips = payslips;
+        this.elapsedNanos = elapsedNanos;
+        this.sortedLatencyNanos = sortedLatencyNanos;
+    }
+
+    public List<Payslip> getPayslips() {
+        return payslips;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getPayslipsPerSecond() {
+        return elapsedNanos == 0 ? 0 : payslips.size() / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    // Per-payslip calculation latency at the given percentile (0-100).
+    public long getLatencyNanos(double percentile) {
+        if (sortedLatencyNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sortedLatencyNanos.length) - 1;
+        return sortedLatencyNanos[Math.max(0, Math.min(index, sortedLatencyNanos.length - 1))];
+    }
+
+    public long getTotalGross() {
+        long total = 0;
+        for (Payslip payslip : payslips) {
+            total = Money.add(total, payslip.getGrossSalary());
+        }
+        return total;
+    }
+
+    public long getTotalNet() {
+        long total = 0;
+        for (Payslip payslip : payslips) {
+            total = Money.add(total, payslip.getNetSalary());
+        }
+        return total;
+    }
+}
+
  class Payroll {
     private final Employee employee;
+    private final TaxRules taxRules;  // Null applies the employee's flat tax rate
 
     public Payroll(Employee employee) {
+        this(employee, null);
+    }
+
+    public Payroll(Employee employee, TaxRules taxRules) {
         this.employee = employee;
+        this.taxRules = taxRules;
     }
 
-    public double calculateGrossSalary() {
-        // Assuming a 30-day month, calculating salary based on attendance
-        return (employee.getBasicSalary() / 30) * employee.getAttendance();
+    // The payslip is computed once per attendance value and cached on the
+    // employee, so printing, totals and export all reuse the same result.
+    public Payslip getPayslip() {
+        Payslip payslip = employee.getCachedPayslip(taxRules);
+        if (payslip == null) {
+            payslip = computePayslip(employee, taxRules);
+            employee.cachePayslip(payslip);
+        }
+        return payslip;
     }
 
-    public double calculateTax() {
-        double grossSalary = calculateGrossSalary();
-        return (grossSalary * employee.getTaxRate()) / 100;
+    public long calculateGrossSalary() {
+        return getPayslip().getGrossSalary();
     }
 
-    public double calculateNetSalary() {
-        double grossSalary = calculateGrossSalary();
-        double tax = calculateTax();
-        return grossSalary - tax;
+    public long calculateTax() {
+        return getPayslip().getTax();
+    }
+
+    public long calculateNetSalary() {
+        return getPayslip().getNetSalary();
     }
 
     public void generatePayslip() {
+        Payslip payslip = getPayslip();
         System.out.println("\n--- Payslip ---");
-        System.out.println("Employee ID: " + employee.getId());
-        System.out.println("Employee Name: " + employee.getName());
-        System.out.println("Basic Salary: $" + employee.getBasicSalary());
-        System.out.println("Attendance: " + employee.getAttendance() + " days");
-        System.out.println("Gross Salary: $" + calculateGrossSalary());
-        System.out.println("Tax Deducted: $" + calculateTax());
-        System.out.println("Net Salary: $" + calculateNetSalary());
+        System.out.println("Employee ID: " + payslip.getEmployeeId());
+        System.out.println("Employee Name: " + payslip.getEmployeeName());
+        System.out.println("Basic Salary: $" + Money.format(payslip.getBasicSalary()));
+        System.out.println("Attendance: " + payslip.getAttendance() + " days");
+        System.out.println("Gross Salary: $" + Money.format(payslip.getGrossSalary()));
+        System.out.println("Tax Deducted: $" + Money.format(payslip.getTax()));
+        if (payslip.getDeductions() != 0) {
+            System.out.println("Other Deductions: $" + Money.format(payslip.getDeductions()));
+        }
+        System.out.println("Net Salary: $" + Money.format(payslip.getNetSalary()));
         System.out.println("------------------\n");
     }
+
+    static Payslip computePayslip(Employee employee, TaxRules taxRules) {
+        int attendance = employee.getAttendance();
+        long grossSalary = grossSalary(employee.getBasicSalary(), attendance);
+        long tax = taxRules == null ? tax(grossSalary, employee.getTaxRate()) : taxRules.tax(grossSalary);
+        long deductions = taxRules == null ? 0 : taxRules.deductions(grossSalary, tax);
+        return new Payslip(employee.getId(), employee.getName(), employee.getBasicSalary(), attendance,
+                grossSalary, tax, deductions, grossSalary - tax - deductions, taxRules);
+    }
+
+    // Amounts are in minor units and rounded half-even once per step.
+    static long grossSalary(long basicSalary, int attendance) {
+        // Assuming a 30-day month, calculating salary based on attendance
+        return Money.multiplyDivide(basicSalary, attendance, 30, RoundingMode.HALF_EVEN);
+    }
+
+    static long tax(long grossSalary, int taxRate) {
+        return Money.applyRate(grossSalary, taxRate, RoundingMode.HALF_EVEN);
+    }
+}
+
+// Column-oriented employee store: one primitive array per field plus an
+// int-keyed open-addressing index from employee ID to row. Payroll batches
+// become linear sweeps over the columns with no boxing or pointer chasing.
+// Not thread-safe for concurrent writers.
+class EmployeeTable {
+    private static final int EMPTY = -1;
+    private static final int PARALLEL_CHUNK = 1 << 16;
+
+    private int size;
+    private int[] ids;
+    private String[] names;
+    private long[] basicSalaries;
+    private int[] taxRates;
+    private volatile int[] attendance;  // Replaced whole by applyAttendance
+    private int[] slots;  // Row index per hash slot, or EMPTY; length is a power of two
+
+    public EmployeeTable(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        ids = new int[capacity];
+        names = new String[capacity];
+        basicSalaries = new long[capacity];
+        taxRates = new int[capacity];
+        attendance = new int[capacity];
+        slots = new int[tableSizeFor(capacity * 2)];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    public static EmployeeTable from(Collection<Employee> employees) {
+        EmployeeTable table = new EmployeeTable(employees.size());
+        for (Employee employee : employees) {
+            int row = table.add(employee.getId(), employee.getName(), employee.getBasicSalary(), employee.getTaxRate());
+            table.attendance[row] = employee.getAttendance();
+        }
+        return table;
+    }
+
+    public int add(int id, String name, long basicSalary, int taxRate) {
+        if (rowOf(id) != EMPTY) {
+            throw new IllegalArgumentException("Duplicate employee ID: " + id);
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        int row = size++;
+        ids[row] = id;
+        names[row] = name;
+        basicSalaries[row] = basicSalary;
+        taxRates[row] = taxRate;
+        insertSlot(id, row);
+        return row;
+    }
+
+    // Row holding the employee, or -1.
+    public int rowOf(int id) {
+        int mask = slots.length - 1;
+        for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+            int row = slots[slot];
+            if (row == EMPTY || ids[row] == id) {
+                return row;
+            }
+        }
+    }
+
+    public boolean setAttendance(int id, int days) {
+        int row = rowOf(id);
+        if (row == EMPTY) {
+            return false;
+        }
+        attendance[row] = days;
+        return true;
+    }
+
+    // Apply a batch by filling a copy of the attendance column and swapping it
+    // in, so a concurrent payroll sweep sees either none or all of the batch.
+    // Returns the number of employees updated; unknown IDs are ignored.
+    public int applyAttendance(AttendanceBatch batch) {
+        int[] updated = attendance.clone();
+        int applied = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            int row = rowOf(batch.getId(i));
+            if (row != EMPTY) {
+                updated[row] = batch.getDays(i);
+                applied++;
+            }
+        }
+        attendance = updated;
+        return applied;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    public String getName(int row) {
+        return names[row];
+    }
+
+    public long getBasicSalary(int row) {
+        return basicSalaries[row];
+    }
+
+    public int getTaxRate(int row) {
+        return taxRates[row];
+    }
+
+    public int getAttendance(int row) {
+        return attendance[row];
+    }
+
+    // Fill the result columns by row (arrays of at least size()); chunks of
+    // rows are swept in parallel. Null taxRules applies each row's flat rate.
+    public void computePayroll(TaxRules taxRules, long[] gross, long[] tax, long[] deductions, long[] net) {
+        int[] days = attendance;
+        int chunks = (size + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int end = Math.min(size, (chunk + 1) * PARALLEL_CHUNK);
+            for (int row = chunk * PARALLEL_CHUNK; row < end; row++) {
+                long grossSalary = Payroll.grossSalary(basicSalaries[row], days[row]);
+                long taxAmount = taxRules == null ? Payroll.tax(grossSalary, taxRates[row]) : taxRules.tax(grossSalary);
+                long deduction = taxRules == null ? 0 : taxRules.deductions(grossSalary, taxAmount);
+                gross[row] = grossSalary;
+                tax[row] = taxAmount;
+                deductions[row] = deduction;
+                net[row] = grossSalary - taxAmount - deduction;
+            }
+        });
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        basicSalaries = Arrays.copyOf(basicSalaries, capacity);
+        taxRates = Arrays.copyOf(taxRates, capacity);
+        attendance = Arrays.copyOf(attendance, capacity);
+        slots = new int[tableSizeFor(capacity * 2)];
+        Arrays.fill(slots, EMPTY);
+        for (int row = 0; row < size; row++) {
+            insertSlot(ids[row], row);
+        }
+    }
+
+    private void insertSlot(int id, int row) {
+        int mask = slots.length - 1;
+        int slot = hash(id) & mask;
+        while (slots[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = row;
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+    }
+}
+
+// Heap footprint and payroll scan time of the HashMap<Integer, Employee>
+// store against EmployeeTable. Run with: java EmployeeStoreBenchmark [employees]
+class EmployeeStoreBenchmark {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = "Employee " + i;
+        }
+
+        long before = usedHeap();
+        Map<Integer, Employee> map = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            Employee employee = new Employee(i * 7 + 1, names[i], Money.ofUnits(2_000 + i % 3_000), 500 + i % 2_500);
+            employee.setAttendance(1 + i % 30);
+            map.put(employee.getId(), employee);
+        }
+        long mapBytes = usedHeap() - before;
+
+        before = usedHeap();
+        EmployeeTable table = new EmployeeTable(count);
+        for (int i = 0; i < count; i++) {
+            table.add(i * 7 + 1, names[i], Money.ofUnits(2_000 + i % 3_000), 500 + i % 2_500);
+            table.setAttendance(i * 7 + 1, 1 + i % 30);
+        }
+        long tableBytes = usedHeap() - before;
+        System.out.printf("%d employees: HashMap store %.1f MB, EmployeeTable %.1f MB (names shared, excluded)%n",
+                count, mapBytes / 1e6, tableBytes / 1e6);
+
+        long[] gross = new long[count];
+        long[] tax = new long[count];
+        long[] deductions = new long[count];
+        long[] net = new long[count];
+        for (int round = 1; round <= 5; round++) {
+            long start = System.nanoTime();
+            long mapTotal = 0;
+            for (Employee employee : map.values()) {
+                long grossSalary = Payroll.grossSalary(employee.getBasicSalary(), employee.getAttendance());
+                mapTotal += grossSalary - Payroll.tax(grossSalary, employee.getTaxRate());
+            }
+            long mapNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            table.computePayroll(null, gross, tax, deductions, net);
+            long tableTotal = 0;
+            for (int row = 0; row < table.size(); row++) {
+                tableTotal += net[row];
+            }
+            long tableNanos = System.nanoTime() - start;
+
+            System.out.printf("round %d: HashMap scan %.1f ms, EmployeeTable sweep %.1f ms, totals match: %s%n",
+                    round, mapNanos / 1e6, tableNanos / 1e6, mapTotal == tableTotal);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
+
+// One month of attendance aggregated from time-clock files: the number of
+// distinct days each employee clocked in. Immutable, so it can be built off
+// to the side and then applied to a store in one step.
+final class AttendanceBatch {
+    private final YearMonth month;
+    private final int[] ids;
+    private final int[] days;
+    private final long rowsRead;
+    private final long rowsSkipped;  // Malformed rows and rows outside the month
+
+    AttendanceBatch(YearMonth month, int[] ids, int[] days, long rowsRead, long rowsSkipped) {
+        this.month = month;
+        this.ids = ids;
+        this.days = days;
+        this.rowsRead = rowsRead;
+        this.rowsSkipped = rowsSkipped;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    public int getDays(int index) {
+        return days[index];
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsSkipped() {
+        return rowsSkipped;
+    }
+}
+
+// Bulk reader for time-clock files of "employeeId,YYYY-MM-DD" rows. The file
+// is memory-mapped in chunks split at newline boundaries and the chunks are
+// parsed in parallel straight from the mapped bytes, so no String is created
+// per row. Each chunk ORs clock-ins into a per-employee bitmask of days,
+// which makes repeated punches on the same day count once; the masks are
+// merged and popcounted into an AttendanceBatch at the end.
+final class AttendanceIngest {
+    static final int CHUNK_SIZE = 4 << 20;
+    private static final int MAX_LINE = 256;  // Longer rows are counted as malformed
+
+    private AttendanceIngest() {
+    }
+
+    public static AttendanceBatch read(Path file, YearMonth month) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            int chunks = (int) ((length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            DayMasks[] parsed = new DayMasks[chunks];
+            try {
+                IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                    try {
+                        parsed[chunk] = parseChunk(channel, length, (long) chunk * CHUNK_SIZE, month);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            DayMasks merged = new DayMasks(1024);
+            long rowsRead = 0;
+            long rowsSkipped = 0;
+            for (DayMasks masks : parsed) {
+                merged.mergeFrom(masks);
+                rowsRead += masks.rowsRead;
+                rowsSkipped += masks.rowsSkipped;
+            }
+            return merged.toBatch(month, rowsRead, rowsSkipped);
+        }
+    }
+
+    // Parses every line that starts inside [start, start + CHUNK_SIZE). A line
+    // cut by the chunk end is finished from the overlap mapped past it; the
+    // line cut by the chunk start belongs to the previous chunk.
+    private static DayMasks parseChunk(FileChannel channel, long length, long start, YearMonth month)
+            throws IOException {
+        long mapStart = Math.max(0, start - 1);
+        long end = Math.min(length, start + CHUNK_SIZE);
+        long mapEnd = Math.min(length, end + MAX_LINE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        int limit = buffer.limit();
+        int ownedEnd = (int) (end - mapStart);
+        int position = (int) (start - mapStart);
+        if (start > 0 && buffer.get(position - 1) != '\n') {
+            while (position < limit && buffer.get(position) != '\n') {
+                position++;
+            }
+            position++;
+        }
+
+        int year = month.getYear();
+        int monthValue = month.getMonthValue();
+        int monthLength = month.lengthOfMonth();
+        DayMasks masks = new DayMasks(4096);
+        while (position < ownedEnd) {
+            int lineEnd = position;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if (contentEnd > position && buffer.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            if (contentEnd > position) {
+                masks.rowsRead++;
+                boolean truncated = lineEnd == limit && mapEnd < length;
+                int day = truncated ? -1 : parseRow(buffer, position, contentEnd, year, monthValue, monthLength, masks);
+                if (day < 0) {
+                    masks.rowsSkipped++;
+                }
+            }
+            position = lineEnd + 1;
+        }
+        return masks;
+    }
+
+    // Parses "id,YYYY-MM-DD" in [from, to) and records it, returning the day
+    // of month or -1 when the row is malformed or outside the month.
+    private static int parseRow(ByteBuffer buffer, int from, int to, int year, int month, int monthLength,
+                                DayMasks masks) {
+        int position = from;
+        long id = 0;
+        while (position < to && isDigit(buffer.get(position))) {
+            id = id * 10 + (buffer.get(position++) - '0');
+            if (id > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        if (position == from || to - position != 11 || buffer.get(position) != ','
+                || buffer.get(position + 5) != '-' || buffer.get(position + 8) != '-') {
+            return -1;
+        }
+        int rowYear = digits(buffer, position + 1, 4);
+        int rowMonth = digits(buffer, position + 6, 2);
+        int day = digits(buffer, position + 9, 2);
+        if (rowYear != year || rowMonth != month || day < 1 || day > monthLength) {
+            return -1;
+        }
+        masks.or((int) id, 1 << (day - 1));
+        return day;
+    }
+
+    private static int digits(ByteBuffer buffer, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            byte b = buffer.get(i);
+            if (!isDigit(b)) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    // Open-addressing map from employee ID to a bitmask of days attended.
+    private static final class DayMasks {
+        private int[] keys;
+        private int[] masks;  // Zero marks an empty slot; a stored mask always has a bit set
+        private int size;
+        long rowsRead;
+        long rowsSkipped;
+
+        DayMasks(int capacity) {
+            keys = new int[capacity];
+            masks = new int[capacity];
+        }
+
+        void or(int id, int bits) {
+            if (size * 2 >= keys.length) {
+                rehash();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(id) & mask;
+            while (masks[slot] != 0 && keys[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            if (masks[slot] == 0) {
+                keys[slot] = id;
+                size++;
+            }
+            masks[slot] |= bits;
+        }
+
+        void mergeFrom(DayMasks other) {
+            for (int slot = 0; slot < other.keys.length; slot++) {
+                if (other.masks[slot] != 0) {
+                    or(other.keys[slot], other.masks[slot]);
+                }
+            }
+        }
+
+        AttendanceBatch toBatch(YearMonth month, long rowsRead, long rowsSkipped) {
+            int[] ids = new int[size];
+            int[] days = new int[size];
+            int index = 0;
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (masks[slot] != 0) {
+                    ids[index] = keys[slot];
+                    days[index++] = Integer.bitCount(masks[slot]);
+                }
+            }
+            return new AttendanceBatch(month, ids, days, rowsRead, rowsSkipped);
+        }
+
+        private void rehash() {
+            int[] oldKeys = keys;
+            int[] oldMasks = masks;
+            keys = new int[oldKeys.length * 2];
+            masks = new int[oldKeys.length * 2];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldMasks[slot] != 0) {
+                    or(oldKeys[slot], oldMasks[slot]);
+                }
+            }
+        }
+
+        private static int hash(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
+
+// Ingest throughput for a generated time-clock file against a BufferedReader
+// and String.split baseline. Run with: java AttendanceIngestBenchmark [rows]
+class AttendanceIngestBenchmark {
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int employees = Math.max(1, rows / 20);
+        YearMonth month = YearMonth.of(2024, 3);
+        Path file = Files.createTempFile("clock-ins", ".csv");
+        try {
+            StringBuilder text = new StringBuilder();
+            try (Writer writer = Files.newBufferedWriter(file)) {
+                for (int i = 0; i < rows; i++) {
+                    int day = 1 + (i / employees) % month.lengthOfMonth();
+                    text.setLength(0);
+                    text.append(1 + i % employees).append(",2024-03-").append(day < 10 ? "0" : "").append(day).append('\n');
+                    writer.append(text);
+                }
+            }
+            System.out.printf("%d rows, %.1f MB%n", rows, Files.size(file) / 1e6);
+
+            for (int round = 1; round <= 5; round++) {
+                long start = System.nanoTime();
+                AttendanceBatch batch = AttendanceIngest.read(file, month);
+                long mappedNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                Map<Integer, Integer> baseline = new HashMap<>();
+                try (BufferedReader reader = Files.newBufferedReader(file)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] fields = line.split(",");
+                        LocalDate date = LocalDate.parse(fields[1]);
+                        baseline.merge(Integer.parseInt(fields[0]), 1 << (date.getDayOfMonth() - 1), (a, b) -> a | b);
+                    }
+                }
+                long baselineNanos = System.nanoTime() - start;
+
+                boolean same = batch.size() == baseline.size();
+                for (int i = 0; same && i < batch.size(); i++) {
+                    same = Integer.bitCount(baseline.get(batch.getId(i))) == batch.getDays(i);
+                }
+                System.out.printf("round %d: mapped parallel %.0f ms (%.1f M rows/sec), reader + split %.0f ms, "
+                                + "results match: %s%n", round, mappedNanos / 1e6, rows / (mappedNanos / 1e3),
+                        baselineNanos / 1e6, same);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
+
+// Streams payslips to a file through one reusable direct buffer, as CSV or as
+// length-prefixed binary records. Numbers and names are encoded straight
+// into the buffer, so memory stays bounded however many payslips are written.
+class PayslipExporter implements Closeable {
+    enum Format { CSV, BINARY }
+
+    static final int BINARY_MAGIC = 0x50534C32;  // "PSL2"
+    static final int MAX_BINARY_NAME_BYTES = 0xFFFF;  // The name length is stored as an unsigned short
+    private static final int BUFFER_BYTES = 256 * 1024;
+    // Widest possible fields: "-2147483648", and '-', 17 digits, '.', 2 digits.
+    private static final int MAX_INT_CHARS = 11;
+    private static final int MAX_MONEY_CHARS = 21;
+    // Id and attendance, five amounts, seven commas and the newline.
+    private static final int CSV_FIXED_BYTES = 2 * MAX_INT_CHARS + 5 * MAX_MONEY_CHARS + 8;
+    // Id, basic, attendance, gross, tax, deductions, net and the name length.
+    private static final int BINARY_FIXED_BYTES = 4 + 8 + 4 + 8 + 8 + 8 + 8 + 2;
+    private static final byte[] CSV_HEADER =
+            "employee_id,name,basic_salary,attendance,gross_salary,tax,deductions,net_salary\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final Format format;
+    private final byte[] digits = new byte[20];
+    private long written;
+
+    private PayslipExporter(FileChannel channel, Format format) {
+        this.channel = channel;
+        this.format = format;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        if (format == Format.CSV) {
+            buffer.put(CSV_HEADER);
+        } else {
+            buffer.putInt(BINARY_MAGIC);
+        }
+    }
+
+    public static PayslipExporter open(Path path, Format format) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new PayslipExporter(channel, format);
+    }
+
+    public void write(Payslip payslip) throws IOException {
+        write(payslip.getEmployeeId(), payslip.getEmployeeName(), payslip.getBasicSalary(), payslip.getAttendance(),
+                payslip.getGrossSalary(), payslip.getTax(), payslip.getDeductions(), payslip.getNetSalary());
+    }
+
+    public void write(int id, String name, long basicSalary, int attendance, long gross, long tax, long deductions,
+                      long net) throws IOException {
+        // A char takes at most three UTF-8 bytes; a doubled quote takes two,
+        // and CSV may wrap the name in two more.
+        ensure(format == Format.CSV ? CSV_FIXED_BYTES + name.length() * 3 + 2 : BINARY_FIXED_BYTES + name.length() * 3);
+        if (format == Format.CSV) {
+            putDecimal(id);
+            buffer.put((byte) ',');
+            putCsvText(name);
+            buffer.put((byte) ',');
+            putMoney(basicSalary);
+            buffer.put((byte) ',');
+            putDecimal(attendance);
+            buffer.put((byte) ',');
+            putMoney(gross);
+            buffer.put((byte) ',');
+            putMoney(tax);
+            buffer.put((byte) ',');
+            putMoney(deductions);
+            buffer.put((byte) ',');
+            putMoney(net);
+            buffer.put((byte) '\n');
+        } else {
+            int recordStart = buffer.position();
+            buffer.putInt(id).putLong(basicSalary).putInt(attendance).putLong(gross).putLong(tax).putLong(deductions)
+                    .putLong(net);
+            int lengthPosition = buffer.position();
+            buffer.putShort((short) 0);
+            int start = buffer.position();
+            putUtf8(name);
+            int nameBytes = buffer.position() - start;
+            if (nameBytes > MAX_BINARY_NAME_BYTES) {
+                buffer.position(recordStart);  // Drop the partial record
+                throw new IllegalArgumentException("Name of employee " + id + " is " + nameBytes
+                        + " UTF-8 bytes, over the binary limit of " + MAX_BINARY_NAME_BYTES);
+            }
+            buffer.putShort(lengthPosition, (short) nameBytes);
+        }
+        written++;
+    }
+
+    // Export rows of an EmployeeTable with the results of EmployeeTable.computePayroll.
+    public void writeTable(EmployeeTable table, long[] gross, long[] tax, long[] deductions, long[] net)
+            throws IOException {
+        for (int row = 0; row < table.size(); row++) {
+            write(table.getId(row), table.getName(row), table.getBasicSalary(row), table.getAttendance(row),
+                    gross[row], tax[row], deductions[row], net[row]);
+        }
+    }
+
+    public long getWrittenCount() {
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (bytes > buffer.capacity()) {
+            throw new IllegalArgumentException("Payslip record too large: " + bytes + " bytes");
+        }
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void putMoney(long amount) {
+        if (amount < 0) {
+            buffer.put((byte) '-');
+            amount = -amount;
+        }
+        putDecimal(amount / Money.MINOR_UNITS);
+        long minor = amount % Money.MINOR_UNITS;
+        buffer.put((byte) '.').put((byte) ('0' + minor / 10)).put((byte) ('0' + minor % 10));
+    }
+
+    private void putDecimal(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (count > 0) {
+            buffer.put(digits[--count]);
+        }
+    }
+
+    private void putCsvText(String text) {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            putUtf8(text);
+            return;
+        }
+        buffer.put((byte) '"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                buffer.put((byte) '"');
+            }
+            putUtf8Char(text, i);
+            if (Character.isHighSurrogate(c) && i + 1 < text.length()) {
+                i++;
+            }
+        }
+        buffer.put((byte) '"');
+    }
+
+    private void putUtf8(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (putUtf8Char(text, i)) {
+                i++;
+            }
+        }
+    }
+
+    // Encode the char at index; returns true if a surrogate pair consumed the next char too.
+    private boolean putUtf8Char(String text, int index) {
+        char c = text.charAt(index);
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, text.charAt(index + 1));
+            buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                    .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+            return true;
+        } else {
+            buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+        }
+        return false;
+    }
+}
+
+// Streams payslips for a large generated EmployeeTable to CSV and binary files.
+// Run with: java PayslipExportBenchmark [employees]
+class PayslipExportBenchmark {
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        EmployeeTable table = new EmployeeTable(count);
+        for (int i = 0; i < count; i++) {
+            table.add(i + 1, "Employee " + i, Money.ofUnits(2_000 + i % 3_000), 500 + i % 2_500);
+            table.setAttendance(i + 1, 1 + i % 30);
+        }
+        long[] gross = new long[count];
+        long[] tax = new long[count];
+        long[] deductions = new long[count];
+        long[] net = new long[count];
+        table.computePayroll(null, gross, tax, deductions, net);
+
+        for (PayslipExporter.Format format : PayslipExporter.Format.values()) {
+            Path file = Files.createTempFile("payslips", format == PayslipExporter.Format.CSV ? ".csv" : ".bin");
+            try {
+                long start = System.nanoTime();
+                try (PayslipExporter exporter = PayslipExporter.open(file, format)) {
+                    exporter.writeTable(table, gross, tax, deductions, net);
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                long bytes = Files.size(file);
+                System.out.printf("%s: %d payslips, %.1f MB in %.2f s (%.0f payslips/sec, %.0f MB/s)%n",
+                        format, count, bytes / 1e6, seconds, count / seconds, bytes / 1e6 / seconds);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
+
+// Evaluation cost of a compiled progressive rule set over a large batch, and
+// the bytes the evaluating thread allocates while doing it.
+// Run with: java TaxRulesBenchmark [employees]
+class TaxRulesBenchmark {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        TaxRules rules = TaxRules.builder()
+                .allowance(Money.ofUnits(1_000))
+                .bracket(0, 1_000)
+                .bracket(Money.ofUnits(1_000), 2_000)
+                .bracket(Money.ofUnits(4_000), 3_000)
+                .bracket(Money.ofUnits(10_000), 4_500)
+                .deductionRate(500)
+                .build();
+        EmployeeTable table = new EmployeeTable(count);
+        for (int i = 0; i < count; i++) {
+            table.add(i + 1, "Employee " + i, Money.ofUnits(1_500 + i % 20_000), 1_000);
+            table.setAttendance(i + 1, 1 + i % 30);
+        }
+        long[] gross = new long[count];
+        for (int row = 0; row < count; row++) {
+            gross[row] = Payroll.grossSalary(table.getBasicSalary(row), table.getAttendance(row));
+        }
+
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threads : null;
+        long thread = Thread.currentThread().getId();
+        for (int round = 1; round <= 5; round++) {
+            long allocatedBefore = allocations == null ? -1 : allocations.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            long total = 0;
+            for (int row = 0; row < count; row++) {
+                long tax = rules.tax(gross[row]);
+                total += tax + rules.deductions(gross[row], tax);
+            }
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocations == null ? -1 : allocations.getThreadAllocatedBytes(thread) - allocatedBefore;
+            System.out.printf("round %d: %.1f ns per employee, %d bytes allocated (checksum %d)%n",
+                    round, (double) elapsed / count, allocated, total);
+        }
+    }
+}
+
+// Cost of producing payslip figures the old way (gross recomputed for every
+// figure) against the memoized Payslip, cold and cached.
+// Run with: java PayslipBenchmark [employees] [rounds]
+class PayslipBenchmark {
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Employee[] employees = new Employee[count];
+        for (int i = 0; i < count; i++) {
+            employees[i] = new Employee(i, "Employee " + i, Money.ofUnits(2_000 + i % 3_000), 500 + i % 2_500);
+            employees[i].setAttendance(1 + i % 30);
+        }
+
+        for (int round = 1; round <= rounds; round++) {
+            long checksum = 0;
+            long start = System.nanoTime();
+            for (Employee employee : employees) {
+                checksum += recomputeEveryFigure(employee);
+            }
+            long recompute = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Employee employee : employees) {
+                // Re-recording attendance invalidates the cache, so this is the compute-once cost.
+                employee.setAttendance(employee.getAttendance());
+                Payslip payslip = new Payroll(employee).getPayslip();
+                checksum -= payslip.getGrossSalary() + payslip.getTax() + payslip.getNetSalary();
+            }
+            long cold = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Employee employee : employees) {
+                Payslip payslip = new Payroll(employee).getPayslip();
+                checksum += payslip.getGrossSalary() + payslip.getTax() + payslip.getNetSalary();
+            }
+            long cached = System.nanoTime() - start;
+
+            System.out.printf("round %d: recompute %.1f ns, memoized cold %.1f ns, cached %.1f ns per payslip (checksum %d)%n",
+                    round, (double) recompute / count, (double) cold / count, (double) cached / count, checksum);
+        }
+    }
+
+    // The call pattern of the original generatePayslip: gross x4, tax x2.
+    private static long recomputeEveryFigure(Employee employee) {
+        long gross = gross(employee);
+        long tax = Money.applyRate(gross(employee), employee.getTaxRate(), RoundingMode.HALF_EVEN);
+        long net = Money.subtract(gross(employee),
+                Money.applyRate(gross(employee), employee.getTaxRate(), RoundingMode.HALF_EVEN));
+        return gross + tax + net;
+    }
+
+    private static long gross(Employee employee) {
+        return Money.multiplyDivide(employee.getBasicSalary(), employee.getAttendance(), 30, RoundingMode.HALF_EVEN);
+    }
 }
 
 public class PayrollSystem {
     private final Map<Integer, Employee> employees;
+    private volatile TaxRules taxRules;  // Null applies each employee's flat tax rate
+    // Payroll runs share the read lock; attendance updates take the write lock,
+    // so a run never sees a bulk import half applied.
+    private final ReadWriteLock attendanceLock = new ReentrantReadWriteLock();
 
     public PayrollSystem() {
         employees = new HashMap<>();
@@ -93,6 +1252,14 @@ public class PayrollSystem {
         employees.put(employee.getId(), employee);
     }
 
+    public TaxRules getTaxRules() {
+        return taxRules;
+    }
+
+    public void setTaxRules(TaxRules taxRules) {
+        this.taxRules = taxRules;
+    }
+
     public void displayEmployees() {
         if (employees.isEmpty()) {
             System.out.println("No employees found.");
@@ -106,30 +1273,112 @@ public class PayrollSystem {
     public void recordAttendance(int id, int days) {
         Employee employee = employees.get(id);
         if (employee != null) {
-            employee.setAttendance(days);
+            attendanceLock.writeLock().lock();
+            try {
+                employee.setAttendance(days);
+            } finally {
+                attendanceLock.writeLock().unlock();
+            }
             System.out.println("Attendance recorded for " + employee.getName());
         } else {
             System.out.println("Employee not found.");
         }
     }
 
+    // Apply every known employee in the batch under the write lock. Returns
+    // the number of employees updated; IDs not on the payroll are ignored.
+    public int applyAttendance(AttendanceBatch batch) {
+        attendanceLock.writeLock().lock();
+        try {
+            int applied = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                Employee employee = employees.get(batch.getId(i));
+                if (employee != null) {
+                    employee.setAttendance(batch.getDays(i));
+                    applied++;
+                }
+            }
+            return applied;
+        } finally {
+            attendanceLock.writeLock().unlock();
+        }
+    }
+
+    public void importAttendance(String fileName, YearMonth month) {
+        try {
+            long start = System.nanoTime();
+            AttendanceBatch batch = AttendanceIngest.read(Path.of(fileName), month);
+            int applied = applyAttendance(batch);
+            System.out.println("Read " + batch.getRowsRead() + " clock-ins (" + batch.getRowsSkipped() + " skipped) in "
+                    + String.format("%.2f", (System.nanoTime() - start) / 1_000_000.0) + " ms; attendance updated for "
+                    + applied + " employees, " + (batch.size() - applied) + " unknown IDs ignored");
+        } catch (IOException e) {
+            System.out.println("Import failed: " + e.getMessage());
+        }
+    }
+
     public void processPayroll(int id) {
         Employee employee = employees.get(id);
         if (employee != null) {
-            Payroll payroll = new Payroll(employee);
+            Payroll payroll = new Payroll(employee, taxRules);
             payroll.generatePayslip();
         } else {
             System.out.println("Employee not found.");
         }
     }
 
+    // Calculate payslips for every employee in parallel on the common fork/join pool.
+    public PayrollRun runPayroll() {
+        Employee[] batch = employees.values().toArray(new Employee[0]);
+        // Read once so the whole batch is evaluated against the same compiled rules.
+        TaxRules rules = taxRules;
+        Payslip[] payslips = new Payslip[batch.length];
+        long[] latencies = new long[batch.length];
+        long start = System.nanoTime();
+        attendanceLock.readLock().lock();
+        try {
+            IntStream.range(0, batch.length).parallel().forEach(i -> {
+                long begin = System.nanoTime();
+                payslips[i] = new Payroll(batch[i], rules).getPayslip();
+                latencies[i] = System.nanoTime() - begin;
+            });
+        } finally {
+            attendanceLock.readLock().unlock();
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new PayrollRun(Arrays.asList(payslips), elapsed, latencies);
+    }
+
+    public void processAllPayroll() {
+        PayrollRun run = runPayroll();
+        System.out.println("Processed " + run.getPayslips().size() + " payslips in "
+                + String.format("%.2f", run.getElapsedNanos() / 1_000_000.0) + " ms ("
+                + String.format("%.0f", run.getPayslipsPerSecond()) + " payslips/sec)");
+        System.out.println("Latency per payslip: p50 " + run.getLatencyNanos(50) + " ns, p99 "
+                + run.getLatencyNanos(99) + " ns, max " + run.getLatencyNanos(100) + " ns");
+        System.out.println("Total Gross: $" + Money.format(run.getTotalGross()) + ", Total Net: $" + Money.format(run.getTotalNet()));
+    }
+
+    public void exportPayroll(String fileName, PayslipExporter.Format format) {
+        PayrollRun run = runPayroll();
+        try (PayslipExporter exporter = PayslipExporter.open(Path.of(fileName), format)) {
+            for (Payslip payslip : run.getPayslips()) {
+                exporter.write(payslip);
+            }
+            System.out.println("Exported " + exporter.getWrittenCount() + " payslips to " + fileName);
+        } catch (IOException e) {
+            System.out.println("Export failed: " + e.getMessage());
+        }
+    }
+
     public static void main(String[] args) {
         PayrollSystem system = new PayrollSystem();
 
         // Adding some employees
-        system.addEmployee(new Employee(1, "John Doe", 3000, 10));
-        system.addEmployee(new Employee(2, "Jane Smith", 3500, 12));
-        system.addEmployee(new Employee(3, "Alice Johnson", 4000, 15));
+        system.addEmployee(new Employee(1, "John Doe", Money.ofUnits(3000), 1000));
+        system.addEmployee(new Employee(2, "Jane Smith", Money.ofUnits(3500), 1200));
+        system.addEmployee(new Employee(3, "Alice Johnson", Money.ofUnits(4000), 1500));
 
         Scanner scanner = new Scanner(System.in);
 
@@ -138,7 +1387,10 @@ public class PayrollSystem {
             System.out.println("1. Display Employees");
             System.out.println("2. Record Attendance");
             System.out.println("3. Process Payroll");
-            System.out.println("4. Exit");
+            System.out.println("4. Process Payroll for All Employees");
+            System.out.println("5. Export Payslips");
+            System.out.println("6. Import Attendance File");
+            System.out.println("7. Exit");
             System.out.print("Choose an option: ");
             int choice = scanner.nextInt();
 
@@ -156,7 +1408,26 @@ public class PayrollSystem {
                     int id = scanner.nextInt();
                     system.processPayroll(id);
                 }
-                case 4 -> {
+                case 4 -> system.processAllPayroll();
+                case 5 -> {
+                    System.out.print("Enter file name: ");
+                    String fileName = scanner.next();
+                    System.out.print("Format (1 = CSV, 2 = binary): ");
+                    int format = scanner.nextInt();
+                    system.exportPayroll(fileName, format == 2 ? PayslipExporter.Format.BINARY : PayslipExporter.Format.CSV);
+                }
+                case 6 -> {
+                    System.out.print("Enter file name: ");
+                    String fileName = scanner.next();
+                    System.out.print("Enter month (YYYY-MM): ");
+                    String month = scanner.next();
+                    try {
+                        system.importAttendance(fileName, YearMonth.parse(month));
+                    } catch (DateTimeParseException e) {
+                        System.out.println("Invalid month: " + month);
+                    }
+                }
+                case 7 -> {
                     System.out.println("Exiting system. Goodbye!");
                     return;
                 }
@@ -1,13 +1,89 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 public class StudentInformationSystem {
-    // Student class
+    static final int DEANS_LIST_GPA = 350;  // Minimum GPA in hundredths of a grade point
+    static final int DEANS_LIST_CREDITS = 12;  // Minimum graded credits
+    static final String SNAPSHOT_FILE = "sis-snapshot.dat";  // Loaded at startup, saved on exit
+
+    // Letter grades on a 4.0 scale, with points held in hundredths so
+    // running sums stay exact.
+    enum Grade {
+        A_PLUS("A+", 400), A("A", 400), A_MINUS("A-", 370),
+        B_PLUS("B+", 330), B("B", 300), B_MINUS("B-", 270),
+        C_PLUS("C+", 230), C("C", 200), C_MINUS("C-", 170),
+        D_PLUS("D+", 130), D("D", 100), D_MINUS("D-", 70),
+        F("F", 0);
+
+        private static final Map<String, Grade> BY_LETTER = new HashMap<>();
+
+        static {
+            for (Grade grade : values()) {
+                BY_LETTER.put(grade.letter, grade);
+            }
+        }
+
+        private final String letter;
+        private final int points;
+
+        Grade(String letter, int points) {
+            this.letter = letter;
+            this.points = points;
+        }
+
+        // Case-insensitive; returns null for anything that is not a letter grade.
+        public static Grade parse(String text) {
+            return text == null ? null : BY_LETTER.get(text.trim().toUpperCase(Locale.ROOT));
+        }
+
+        public int getPoints() { return points; }
+        public boolean isPassing() { return this != F; }
+
+        @Override
+        public String toString() { return letter; }
+    }
+
+    static String formatGPA(long hundredths) {
+        return hundredths / 100 + (hundredths % 100 < 10 ? ".0" : ".") + hundredths % 100;
+    }
+
+    // Student class. Credit and quality-point totals are running sums kept up
+    // to date by SIS.enrollStudent, so GPA never rescans enrollments.
     static class Student {
         private final String studentID;
         private final String name;
         private final String email;
+        private int attemptedCredits;
+        private int earnedCredits;
+        private long qualityPoints;  // Sum of grade points x credits, in hundredths
 
         public Student(String studentID, String name, String email) {
             this.studentID = studentID;
@@ -18,6 +94,25 @@ public class StudentInformationSystem {
         public String getStudentID() { return studentID; }
         public String getName() { return name; }
         public String getEmail() { return email; }
+        public int getAttemptedCredits() { return attemptedCredits; }
+        public int getEarnedCredits() { return earnedCredits; }
+
+        // Credit-weighted GPA in hundredths, rounded half up; 0 with no graded credits.
+        public long getGPA() {
+            return attemptedCredits == 0 ? 0 : (qualityPoints * 2 + attemptedCredits) / (2L * attemptedCredits);
+        }
+
+        public boolean isOnDeansList() {
+            return attemptedCredits >= DEANS_LIST_CREDITS && getGPA() >= DEANS_LIST_GPA;
+        }
+
+        void recordGrade(int credits, Grade grade) {
+            attemptedCredits += credits;
+            if (grade.isPassing()) {
+                earnedCredits += credits;
+            }
+            qualityPoints += (long) grade.getPoints() * credits;
+        }
     }
 
     // Course class
@@ -25,6 +120,9 @@ public class StudentInformationSystem {
         private final String courseID;
         private final String courseName;
         private final int credits;
+        private int gradedCount;
+        private long gradePoints;  // Sum of grade points, in hundredths
+        private final int[] gradeCounts = new int[Grade.values().length];
 
         public Course(String courseID, String courseName, int credits) {
             this.courseID = courseID;
@@ -35,15 +133,28 @@ public class StudentInformationSystem {
         public String getCourseID() { return courseID; }
         public String getCourseName() { return courseName; }
         public int getCredits() { return credits; }
+        public int getGradedCount() { return gradedCount; }
+        public int getGradeCount(Grade grade) { return gradeCounts[grade.ordinal()]; }
+
+        // Mean grade points of everyone enrolled, in hundredths, rounded half up.
+        public long getAverage() {
+            return gradedCount == 0 ? 0 : (gradePoints * 2 + gradedCount) / (2L * gradedCount);
+        }
+
+        void recordGrade(Grade grade) {
+            gradedCount++;
+            gradePoints += grade.getPoints();
+            gradeCounts[grade.ordinal()]++;
+        }
     }
 
     // Enrollment class
     static class Enrollment {
         private final Student student;
         private final Course course;
-        private final String grade;
+        private final Grade grade;
 
-        public Enrollment(Student student, Course course, String grade) {
+        public Enrollment(Student student, Course course, Grade grade) {
             this.student = student;
             this.course = course;
             this.grade = grade;
@@ -51,7 +162,7 @@ public class StudentInformationSystem {
 
         public Student getStudent() { return student; }
         public Course getCourse() { return course; }
-        public String getGrade() { return grade; }
+        public Grade getGrade() { return grade; }
     }
 
     // Transcript class
@@ -65,44 +176,177 @@ public class StudentInformationSystem {
         }
 
         public void generateTranscript() {
-            System.out.println("Transcript for: " + student.getName());
+            StringBuilder out = new StringBuilder();
+            render(out);
+            System.out.print(out);
+        }
+
+        // Append the transcript as lines ending in '\n'; shared by the console
+        // and TranscriptWriter so both produce the same text.
+        public void render(StringBuilder out) {
+            out.append("Transcript for: ").append(student.getName()).append('\n');
             for (Enrollment enrollment : enrollments) {
-                System.out.println(enrollment.getCourse().getCourseName() + ": " + enrollment.getGrade());
+                Course course = enrollment.getCourse();
+                out.append(course.getCourseName()).append(" (").append(course.getCredits()).append(" credits): ")
+                        .append(enrollment.getGrade()).append('\n');
             }
+            out.append("Credits earned: ").append(student.getEarnedCredits()).append(" of ")
+                    .append(student.getAttemptedCredits()).append(" attempted, GPA: ").append(formatGPA(student.getGPA()));
+            if (student.isOnDeansList()) {
+                out.append(" (Dean's List)");
+            }
+            out.append('\n');
         }
     }
 
-    // Main class to manage the system
+    // Main class to manage the system. Students and courses are kept in
+    // insertion order and also indexed by ID, so lookups and enrolment are
+    // O(1) and an ID can only be registered once. Each enrolment is also
+    // appended to its student's and its course's adjacency list, so a
+    // transcript or class roster costs only the size of its result.
+    // Enrolments bulk-loaded from a snapshot stay as index columns until an
+    // enrolment list is first asked for (see enrollRows).
     static class SIS {
         private final List<Student> students;
         private final List<Course> courses;
         private final List<Enrollment> enrollments;
+        private final Map<String, Student> studentsByID;
+        private final Map<String, Course> coursesByID;
+        private final Map<Student, List<Enrollment>> enrollmentsByStudent;
+        private final Map<Course, List<Enrollment>> enrollmentsByCourse;
+        private volatile EnrollmentRows pendingRows;  // Bulk-loaded, not yet in the lists above
 
         public SIS() {
-            students = new ArrayList<>();
-            courses = new ArrayList<>();
-            enrollments = new ArrayList<>();
+            this(16, 16, 16);
+        }
+
+        // Pre-sized for a known load, such as a snapshot reload.
+        public SIS(int expectedStudents, int expectedCourses, int expectedEnrollments) {
+            students = new ArrayList<>(expectedStudents);
+            courses = new ArrayList<>(expectedCourses);
+            enrollments = new ArrayList<>(expectedEnrollments);
+            studentsByID = new HashMap<>(mapCapacity(expectedStudents));
+            coursesByID = new HashMap<>(mapCapacity(expectedCourses));
+            enrollmentsByStudent = new HashMap<>(mapCapacity(expectedStudents));
+            enrollmentsByCourse = new HashMap<>(mapCapacity(expectedCourses));
+        }
+
+        private static int mapCapacity(int expectedSize) {
+            return (int) (expectedSize / 0.75f) + 1;
+        }
+
+        // Returns false, leaving the registry unchanged, if the ID is already taken.
+        public boolean addStudent(String studentID, String name, String email) {
+            return addStudent(new Student(studentID, name, email));
         }
 
-        public void addStudent(String studentID, String name, String email) {
-            Student student = new Student(studentID, name, email);
+        boolean addStudent(Student student) {
+            if (studentsByID.putIfAbsent(student.getStudentID(), student) != null) {
+                return false;
+            }
             students.add(student);
+            enrollmentsByStudent.put(student, new ArrayList<>());
+            return true;
         }
 
-        public void addCourse(String courseID, String courseName, int credits) {
-            Course course = new Course(courseID, courseName, credits);
+        // Returns false, leaving the registry unchanged, if the ID is already taken.
+        public boolean addCourse(String courseID, String courseName, int credits) {
+            return addCourse(new Course(courseID, courseName, credits));
+        }
+
+        boolean addCourse(Course course) {
+            if (coursesByID.putIfAbsent(course.getCourseID(), course) != null) {
+                return false;
+            }
             courses.add(course);
+            enrollmentsByCourse.put(course, new ArrayList<>());
+            return true;
         }
 
-        public void enrollStudent(String studentID, String courseID, String grade) {
+        // Returns false if the student or course does not exist or the grade
+        // is not a letter grade (see Grade.parse).
+        public boolean enrollStudent(String studentID, String courseID, String grade) {
             Student student = findStudent(studentID);
             Course course = findCourse(courseID);
-            if (student != null && course != null) {
-                Enrollment enrollment = new Enrollment(student, course, grade);
-                enrollments.add(enrollment);
+            Grade parsed = Grade.parse(grade);
+            if (student != null && course != null && parsed != null) {
+                enroll(student, course, parsed);
+                return true;
+            }
+            return false;
+        }
+
+        // Bulk enrolment by row index into students and courses, as a snapshot
+        // reload does. Running totals are applied straight from the columns,
+        // so GPAs, credits and course averages are ready at once; the
+        // Enrollment objects and adjacency lists are built on first use.
+        void enrollRows(Student[] students, Course[] courses, int[] studentRows, int[] courseRows, byte[] grades) {
+            materializeRows();
+            Grade[] values = Grade.values();
+            for (int i = 0; i < studentRows.length; i++) {
+                Course course = courses[courseRows[i]];
+                Grade grade = values[grades[i]];
+                students[studentRows[i]].recordGrade(course.getCredits(), grade);
+                course.recordGrade(grade);
+            }
+            pendingRows = new EnrollmentRows(students, courses, studentRows, courseRows, grades);
+        }
+
+        // Builds the Enrollment objects for rows left by enrollRows. Each
+        // adjacency list is looked up once and sized to its final length up
+        // front instead of once per enrolment. Synchronized because readers
+        // such as TranscriptWriter may arrive from several threads at once.
+        private void materializeRows() {
+            if (pendingRows == null) {
+                return;
+            }
+            synchronized (this) {
+                EnrollmentRows rows = pendingRows;
+                if (rows == null) {
+                    return;
+                }
+                List<Enrollment>[] byStudent = presize(rows.students, rows.studentRows, enrollmentsByStudent);
+                List<Enrollment>[] byCourse = presize(rows.courses, rows.courseRows, enrollmentsByCourse);
+                Grade[] values = Grade.values();
+                for (int i = 0; i < rows.studentRows.length; i++) {
+                    Enrollment enrollment = new Enrollment(rows.students[rows.studentRows[i]],
+                            rows.courses[rows.courseRows[i]], values[rows.grades[i]]);
+                    enrollments.add(enrollment);
+                    byStudent[rows.studentRows[i]].add(enrollment);
+                    byCourse[rows.courseRows[i]].add(enrollment);
+                }
+                pendingRows = null;
             }
         }
 
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static <K> List<Enrollment>[] presize(K[] keys, int[] rows, Map<K, List<Enrollment>> index) {
+            int[] counts = new int[keys.length];
+            for (int row : rows) {
+                counts[row]++;
+            }
+            List<Enrollment>[] lists = new List[keys.length];
+            for (int row = 0; row < keys.length; row++) {
+                List<Enrollment> existing = index.get(keys[row]);
+                List<Enrollment> sized = new ArrayList<>(existing.size() + counts[row]);
+                sized.addAll(existing);
+                index.put(keys[row], sized);
+                lists[row] = sized;
+            }
+            return lists;
+        }
+
+        // Enrol an already resolved student and course of this registry.
+        void enroll(Student student, Course course, Grade grade) {
+            materializeRows();
+            Enrollment enrollment = new Enrollment(student, course, grade);
+            student.recordGrade(course.getCredits(), grade);
+            course.recordGrade(grade);
+            enrollments.add(enrollment);
+            enrollmentsByStudent.get(student).add(enrollment);
+            enrollmentsByCourse.get(course).add(enrollment);
+        }
+
         public void generateTranscript(String studentID) {
             Student student = findStudent(studentID);
             if (student != null) {
@@ -112,25 +356,914 @@ public class StudentInformationSystem {
             }
         }
 
-        private Student findStudent(String studentID) {
+        public void printRoster(String courseID) {
+            Course course = findCourse(courseID);
+            if (course != null) {
+                List<Enrollment> roster = getRoster(course);
+                System.out.println("Roster for " + course.getCourseName() + " (" + roster.size() + " enrolled, average "
+                        + formatGPA(course.getAverage()) + "):");
+                for (Enrollment enrollment : roster) {
+                    Student student = enrollment.getStudent();
+                    System.out.println(student.getStudentID() + " " + student.getName() + ": " + enrollment.getGrade());
+                }
+            }
+        }
+
+        // Running totals make each check O(1); the list costs one pass over students.
+        public List<Student> getDeansList() {
+            List<Student> deansList = new ArrayList<>();
             for (Student student : students) {
-                if (student.getStudentID().equals(studentID)) {
-                    return student;
+                if (student.isOnDeansList()) {
+                    deansList.add(student);
                 }
             }
-            return null;
+            return deansList;
+        }
+
+        public void printDeansList() {
+            List<Student> deansList = getDeansList();
+            System.out.println("Dean's List (GPA " + formatGPA(DEANS_LIST_GPA) + "+, " + DEANS_LIST_CREDITS
+                    + "+ credits): " + deansList.size() + " students");
+            for (Student student : deansList) {
+                System.out.println(student.getStudentID() + " " + student.getName() + ": " + formatGPA(student.getGPA()));
+            }
+        }
+
+        public List<Student> getStudents() { return students; }
+        public List<Course> getCourses() { return courses; }
+
+        public Student findStudent(String studentID) {
+            return studentID == null ? null : studentsByID.get(studentID);
+        }
+
+        public Course findCourse(String courseID) {
+            return courseID == null ? null : coursesByID.get(courseID);
+        }
+
+        // Read-only views of the adjacency lists, in enrolment order.
+        public List<Enrollment> getEnrollmentsByStudent(Student student) {
+            materializeRows();
+            List<Enrollment> studentEnrollments = enrollmentsByStudent.get(student);
+            return studentEnrollments == null ? List.of() : Collections.unmodifiableList(studentEnrollments);
+        }
+
+        public List<Enrollment> getRoster(Course course) {
+            materializeRows();
+            List<Enrollment> roster = enrollmentsByCourse.get(course);
+            return roster == null ? List.of() : Collections.unmodifiableList(roster);
+        }
+
+        public List<Enrollment> getEnrollments() {
+            materializeRows();
+            return enrollments;
+        }
+
+        // Does not build pending rows, unlike getEnrollments().size().
+        public int getEnrollmentCount() {
+            EnrollmentRows rows = pendingRows;
+            return enrollments.size() + (rows == null ? 0 : rows.size());
+        }
+
+        // For Snapshot.save: the built enrollments, then any rows still
+        // pending from enrollRows, without building them.
+        List<Enrollment> getBuiltEnrollments() { return enrollments; }
+        EnrollmentRows getPendingRows() { return pendingRows; }
+    }
+
+    // Enrolment columns handed over by a snapshot load; see SIS.enrollRows.
+    private static final class EnrollmentRows {
+        final Student[] students;
+        final Course[] courses;
+        final int[] studentRows;
+        final int[] courseRows;
+        final byte[] grades;
+
+        EnrollmentRows(Student[] students, Course[] courses, int[] studentRows, int[] courseRows, byte[] grades) {
+            this.students = students;
+            this.courses = courses;
+            this.studentRows = studentRows;
+            this.courseRows = courseRows;
+            this.grades = grades;
+        }
+
+        int size() {
+            return studentRows.length;
+        }
+    }
+
+    // Bulk loader for term-start roster files. Files are streamed in blocks
+    // of lines; each block is split and validated in parallel, then inserted
+    // into the registry in one sequential batch, so memory stays bounded and
+    // SIS itself needs no locking. Rows are comma- or tab-separated (detected
+    // from the first line), fields may be double-quoted, and a header row is
+    // skipped. Student and course rows must not reuse an ID; enrollment rows
+    // must name a registered student and course and a valid letter grade.
+    static class RosterImporter {
+        static final int BATCH_SIZE = 1 << 16;
+        private static final Object UNKNOWN_REFERENCE = new Object();  // Parse result for a dangling enrollment
+
+        enum Kind {
+            STUDENTS("studentID", 3), COURSES("courseID", 3), ENROLLMENTS("studentID", 3);
+
+            private final String header;
+            private final int fields;
+
+            Kind(String header, int fields) {
+                this.header = header;
+                this.fields = fields;
+            }
+        }
+
+        static class ImportResult {
+            private long rowsRead;
+            private long inserted;
+            private long duplicates;
+            private long unknownReferences;
+            private long malformed;
+            private long elapsedNanos;
+
+            public long getRowsRead() { return rowsRead; }
+            public long getInserted() { return inserted; }
+            public long getDuplicates() { return duplicates; }
+            public long getUnknownReferences() { return unknownReferences; }
+            public long getMalformed() { return malformed; }
+            public long getElapsedNanos() { return elapsedNanos; }
+
+            public double getRowsPerSecond() {
+                return elapsedNanos == 0 ? 0 : rowsRead / (elapsedNanos / 1_000_000_000.0);
+            }
+
+            @Override
+            public String toString() {
+                return String.format("%d rows in %.0f ms (%.0f rows/sec): %d inserted, %d duplicate IDs, "
+                                + "%d unknown references, %d malformed", rowsRead, elapsedNanos / 1e6,
+                        getRowsPerSecond(), inserted, duplicates, unknownReferences, malformed);
+            }
+        }
+
+        private final SIS sis;
+
+        public RosterImporter(SIS sis) {
+            this.sis = sis;
+        }
+
+        public ImportResult importFile(Path file, Kind kind) throws IOException {
+            ImportResult result = new ImportResult();
+            long start = System.nanoTime();
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String first = reader.readLine();
+                if (first == null) {
+                    return result;
+                }
+                char delimiter = first.indexOf('\t') >= 0 ? '\t' : ',';
+                String[] batch = new String[BATCH_SIZE];
+                int count = 0;
+                String[] header = split(first, delimiter, kind.fields);
+                if (header == null || !header[0].equalsIgnoreCase(kind.header)
+                        && !header[0].replace("_", "").equalsIgnoreCase(kind.header)) {
+                    batch[count++] = first;
+                }
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    batch[count++] = line;
+                    if (count == BATCH_SIZE) {
+                        insertBatch(batch, count, delimiter, kind, result);
+                        count = 0;
+                    }
+                }
+                insertBatch(batch, count, delimiter, kind, result);
+            } finally {
+                result.elapsedNanos = System.nanoTime() - start;
+            }
+            return result;
+        }
+
+        private void insertBatch(String[] lines, int count, char delimiter, Kind kind, ImportResult result) {
+            Object[] parsed = new Object[count];
+            IntStream.range(0, count).parallel().forEach(i -> parsed[i] = parse(lines[i], delimiter, kind));
+            result.rowsRead += count;
+            for (int i = 0; i < count; i++) {
+                Object row = parsed[i];
+                if (row == null) {
+                    result.malformed++;
+                } else if (row == UNKNOWN_REFERENCE) {
+                    result.unknownReferences++;
+                } else if (insert(row)) {
+                    result.inserted++;
+                } else {
+                    result.duplicates++;
+                }
+            }
+        }
+
+        // Returns false for a student or course whose ID is already registered.
+        private boolean insert(Object row) {
+            if (row instanceof Student student) {
+                return sis.addStudent(student);
+            }
+            if (row instanceof Course course) {
+                return sis.addCourse(course);
+            }
+            Enrollment enrollment = (Enrollment) row;
+            sis.enroll(enrollment.getStudent(), enrollment.getCourse(), enrollment.getGrade());
+            return true;
+        }
+
+        // Runs on worker threads: only reads the registries, which are not
+        // modified until the whole block has been parsed.
+        private Object parse(String line, char delimiter, Kind kind) {
+            String[] fields = split(line, delimiter, kind.fields);
+            if (fields == null || fields[0].isEmpty() || fields[1].isEmpty()) {
+                return null;
+            }
+            switch (kind) {
+                case STUDENTS:
+                    return new Student(fields[0], fields[1], fields[2]);
+                case COURSES:
+                    try {
+                        int credits = Integer.parseInt(fields[2].trim());
+                        return credits < 0 ? null : new Course(fields[0], fields[1], credits);
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                default:
+                    Grade grade = Grade.parse(fields[2]);
+                    if (grade == null) {
+                        return null;
+                    }
+                    Student student = sis.findStudent(fields[0]);
+                    Course course = sis.findCourse(fields[1]);
+                    return student == null || course == null ? UNKNOWN_REFERENCE : new Enrollment(student, course, grade);
+            }
+        }
+
+        // Split one row into exactly `expected` fields, honouring double quotes
+        // ("" is a literal quote). Returns null if the field count is wrong.
+        static String[] split(String line, char delimiter, int expected) {
+            String[] fields = new String[expected];
+            StringBuilder field = new StringBuilder();
+            int count = 0;
+            boolean quoted = false;
+            for (int i = 0; i <= line.length(); i++) {
+                char c = i < line.length() ? line.charAt(i) : delimiter;
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else if (i == line.length()) {
+                        return null;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == delimiter) {
+                    if (count == expected) {
+                        return null;
+                    }
+                    fields[count++] = field.toString();
+                    field.setLength(0);
+                } else if (c != '\r') {
+                    field.append(c);
+                }
+            }
+            return count == expected ? fields : null;
+        }
+    }
+
+    // Binary snapshot of a whole SIS, reloaded by memory-mapping the file.
+    // Layout, big-endian:
+    //   int magic "SIS2", int strings, int students, int courses, int enrollments
+    //   strings:     int byteLength, UTF-8 bytes (each distinct string once)
+    //   students:    int id, int name, int email (string table indexes)
+    //   courses:     int id, int name, int credits
+    //   enrollments: three columns, all student row indexes, then all course
+    //                row indexes, then all grade ordinals as bytes
+    //   int CRC32 of everything before it
+    // Loading decodes the string table once and rebuilds the students and
+    // courses with no ID lookups. The enrollment columns are bulk-copied out
+    // of the mapping and only the running totals are applied; Enrollment
+    // objects and adjacency lists are built when first asked for (see
+    // SIS.enrollRows), so that cost moves to the first transcript or roster.
+    static class Snapshot {
+        static final int MAGIC = 0x53495332;  // "SIS2"
+        private static final int HEADER_BYTES = 20;
+
+        private Snapshot() {
+        }
+
+        // Written to a temporary file and renamed, so a crash never leaves a torn snapshot.
+        public static void save(SIS sis, Path path) throws IOException {
+            Map<String, Integer> stringIndex = new HashMap<>();
+            List<byte[]> strings = new ArrayList<>();
+            List<Student> students = sis.getStudents();
+            List<Course> courses = sis.getCourses();
+            // Rows still pending from a load are written from their columns, not built first.
+            List<Enrollment> enrollments = sis.getBuiltEnrollments();
+            EnrollmentRows pending = sis.getPendingRows();
+            int enrollmentCount = enrollments.size() + (pending == null ? 0 : pending.size());
+            Map<Student, Integer> studentRows = new IdentityHashMap<>(students.size());
+            Map<Course, Integer> courseRows = new IdentityHashMap<>(courses.size());
+            int[] studentFields = new int[students.size() * 3];
+            int[] courseFields = new int[courses.size() * 3];
+            for (int row = 0; row < students.size(); row++) {
+                Student student = students.get(row);
+                studentRows.put(student, row);
+                studentFields[row * 3] = intern(student.getStudentID(), stringIndex, strings);
+                studentFields[row * 3 + 1] = intern(student.getName(), stringIndex, strings);
+                studentFields[row * 3 + 2] = intern(student.getEmail(), stringIndex, strings);
+            }
+            for (int row = 0; row < courses.size(); row++) {
+                Course course = courses.get(row);
+                courseRows.put(course, row);
+                courseFields[row * 3] = intern(course.getCourseID(), stringIndex, strings);
+                courseFields[row * 3 + 1] = intern(course.getCourseName(), stringIndex, strings);
+                courseFields[row * 3 + 2] = course.getCredits();
+            }
+            int[] pendingStudentRows = pending == null ? null : rowsOf(pending.students, studentRows);
+            int[] pendingCourseRows = pending == null ? null : rowsOf(pending.courses, courseRows);
+
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ChecksumWriter writer = new ChecksumWriter(out);
+                writer.putInt(MAGIC).putInt(strings.size()).putInt(students.size()).putInt(courses.size())
+                        .putInt(enrollmentCount);
+                for (byte[] bytes : strings) {
+                    writer.putInt(bytes.length).put(bytes);
+                }
+                for (int field : studentFields) {
+                    writer.putInt(field);
+                }
+                for (int field : courseFields) {
+                    writer.putInt(field);
+                }
+                for (Enrollment enrollment : enrollments) {
+                    writer.putInt(studentRows.get(enrollment.getStudent()));
+                }
+                for (int i = 0; pending != null && i < pending.size(); i++) {
+                    writer.putInt(pendingStudentRows[pending.studentRows[i]]);
+                }
+                for (Enrollment enrollment : enrollments) {
+                    writer.putInt(courseRows.get(enrollment.getCourse()));
+                }
+                for (int i = 0; pending != null && i < pending.size(); i++) {
+                    writer.putInt(pendingCourseRows[pending.courseRows[i]]);
+                }
+                for (Enrollment enrollment : enrollments) {
+                    writer.put((byte) enrollment.getGrade().ordinal());
+                }
+                for (int i = 0; pending != null && i < pending.size(); i++) {
+                    writer.put(pending.grades[i]);
+                }
+                writer.finish();
+                out.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        public static SIS load(Path path) throws IOException {
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = in.size();
+                if (size < HEADER_BYTES + 4 || size > Integer.MAX_VALUE) {
+                    throw new IOException("Not an SIS snapshot: " + path);
+                }
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                CRC32 crc = new CRC32();
+                crc.update(buffer.slice(0, (int) size - 4));
+                if (buffer.getInt(0) != MAGIC || buffer.getInt((int) size - 4) != (int) crc.getValue()) {
+                    throw new IOException("Corrupt SIS snapshot: " + path);
+                }
+                buffer.position(4);
+                int stringCount = buffer.getInt();
+                int studentCount = buffer.getInt();
+                int courseCount = buffer.getInt();
+                int enrollmentCount = buffer.getInt();
+
+                String[] strings = new String[stringCount];
+                byte[] bytes = new byte[64];
+                for (int i = 0; i < stringCount; i++) {
+                    int length = buffer.getInt();
+                    if (length > bytes.length) {
+                        bytes = new byte[Math.max(length, bytes.length * 2)];
+                    }
+                    buffer.get(bytes, 0, length);
+                    strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+                }
+
+                SIS sis = new SIS(studentCount, courseCount, enrollmentCount);
+                Student[] students = new Student[studentCount];
+                for (int row = 0; row < studentCount; row++) {
+                    students[row] = new Student(strings[buffer.getInt()], strings[buffer.getInt()], strings[buffer.getInt()]);
+                    sis.addStudent(students[row]);
+                }
+                Course[] courses = new Course[courseCount];
+                for (int row = 0; row < courseCount; row++) {
+                    courses[row] = new Course(strings[buffer.getInt()], strings[buffer.getInt()], buffer.getInt());
+                    sis.addCourse(courses[row]);
+                }
+                int[] studentRows = new int[enrollmentCount];
+                int[] courseRows = new int[enrollmentCount];
+                byte[] grades = new byte[enrollmentCount];
+                buffer.slice().asIntBuffer().get(studentRows);
+                buffer.position(buffer.position() + enrollmentCount * 4);
+                buffer.slice().asIntBuffer().get(courseRows);
+                buffer.position(buffer.position() + enrollmentCount * 4);
+                buffer.get(grades);
+                int gradeCount = Grade.values().length;
+                for (int i = 0; i < enrollmentCount; i++) {
+                    if (Integer.compareUnsigned(studentRows[i], studentCount) >= 0
+                            || Integer.compareUnsigned(courseRows[i], courseCount) >= 0
+                            || Integer.compareUnsigned(grades[i], gradeCount) >= 0) {
+                        throw new IOException("Corrupt SIS snapshot: " + path);
+                    }
+                }
+                sis.enrollRows(students, courses, studentRows, courseRows, grades);
+                return sis;
+            } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException
+                     | NegativeArraySizeException e) {
+                throw new IOException("Corrupt SIS snapshot: " + path, e);
+            }
+        }
+
+        // Row of each key in this snapshot, by the key's index in keys.
+        private static <K> int[] rowsOf(K[] keys, Map<K, Integer> rows) {
+            int[] result = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                result[i] = rows.get(keys[i]);
+            }
+            return result;
+        }
+
+        private static int intern(String value, Map<String, Integer> index, List<byte[]> strings) {
+            Integer existing = index.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            strings.add(value.getBytes(StandardCharsets.UTF_8));
+            index.put(value, strings.size() - 1);
+            return strings.size() - 1;
+        }
+
+        // Buffered channel writer that checksums every byte it writes.
+        private static class ChecksumWriter {
+            private final FileChannel channel;
+            private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            private final CRC32 crc = new CRC32();
+
+            ChecksumWriter(FileChannel channel) {
+                this.channel = channel;
+            }
+
+            ChecksumWriter putInt(int value) throws IOException {
+                ensure(4);
+                buffer.putInt(value);
+                return this;
+            }
+
+            ChecksumWriter put(byte value) throws IOException {
+                ensure(1);
+                buffer.put(value);
+                return this;
+            }
+
+            ChecksumWriter put(byte[] bytes) throws IOException {
+                for (int offset = 0; offset < bytes.length; ) {
+                    ensure(1);
+                    int length = Math.min(buffer.remaining(), bytes.length - offset);
+                    buffer.put(bytes, offset, length);
+                    offset += length;
+                }
+                return this;
+            }
+
+            void finish() throws IOException {
+                flush();
+                buffer.putInt((int) crc.getValue());
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+
+            private void ensure(int bytes) throws IOException {
+                if (buffer.remaining() < bytes) {
+                    flush();
+                }
+            }
+
+            private void flush() throws IOException {
+                buffer.flip();
+                crc.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+    }
+
+    // Saves a large SIS and reloads it from the memory-mapped snapshot,
+    // against replaying the same enrollments through enrollStudent. The
+    // first-use time is building the deferred Enrollment objects, which a
+    // reload pays on its first transcript or roster rather than at startup.
+    // Run with: java StudentInformationSystem$SnapshotBenchmark [students] [courses] [enrollments]
+    static class SnapshotBenchmark {
+        public static void main(String[] args) throws IOException {
+            int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+            int courseCount = args.length > 1 ? Integer.parseInt(args[1]) : 3_000;
+            int enrollmentCount = args.length > 2 ? Integer.parseInt(args[2]) : 3_000_000;
+            Grade[] grades = Grade.values();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            SIS sis = new SIS();
+            for (int c = 0; c < courseCount; c++) {
+                sis.addCourse("C" + c, "Course " + c % 500, 1 + c % 5);
+            }
+            for (int s = 0; s < studentCount; s++) {
+                sis.addStudent("S" + s, "Student " + s % 10_000, "s" + s + "@example.edu");
+            }
+            for (int e = 0; e < enrollmentCount; e++) {
+                sis.enroll(sis.getStudents().get(random.nextInt(studentCount)),
+                        sis.getCourses().get(random.nextInt(courseCount)), grades[random.nextInt(grades.length)]);
+            }
+
+            Path file = Files.createTempFile("sis", ".snapshot");
+            try {
+                long start = System.nanoTime();
+                Snapshot.save(sis, file);
+                System.out.printf("saved %d students, %d courses, %d enrollments: %.1f MB in %.0f ms%n",
+                        studentCount, courseCount, enrollmentCount, Files.size(file) / 1e6, (System.nanoTime() - start) / 1e6);
+
+                for (int round = 1; round <= 3; round++) {
+                    start = System.nanoTime();
+                    SIS loaded = Snapshot.load(file);
+                    long loadNanos = System.nanoTime() - start;
+                    Student sample = sis.getStudents().get(random.nextInt(studentCount));
+                    boolean same = loaded.getEnrollmentCount() == enrollmentCount
+                            && loaded.findStudent(sample.getStudentID()).getGPA() == sample.getGPA();
+
+                    start = System.nanoTime();
+                    same &= loaded.getEnrollmentsByStudent(loaded.findStudent(sample.getStudentID())).size()
+                            == sis.getEnrollmentsByStudent(sample).size();
+                    long firstUseNanos = System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    SIS replayed = new SIS();
+                    for (Course course : sis.getCourses()) {
+                        replayed.addCourse(course.getCourseID(), course.getCourseName(), course.getCredits());
+                    }
+                    for (Student student : sis.getStudents()) {
+                        replayed.addStudent(student.getStudentID(), student.getName(), student.getEmail());
+                    }
+                    for (Enrollment enrollment : sis.getEnrollments()) {
+                        replayed.enrollStudent(enrollment.getStudent().getStudentID(),
+                                enrollment.getCourse().getCourseID(), enrollment.getGrade().toString());
+                    }
+                    long replayNanos = System.nanoTime() - start;
+
+                    System.out.printf("round %d: snapshot load %.0f ms (+%.0f ms on first use), replaying inserts %.0f ms, "
+                            + "contents match: %s%n", round, loadNanos / 1e6, firstUseNanos / 1e6, replayNanos / 1e6, same);
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // Renders every student's transcript into per-partition files. Students
+    // are split into contiguous partitions written in parallel; each
+    // partition reuses one StringBuilder, one encoder and one direct buffer
+    // for all its transcripts, so memory stays bounded by the partition
+    // count rather than the cohort size.
+    static class TranscriptWriter {
+        static final int BUFFER_SIZE = 1 << 16;
+
+        static class BatchResult {
+            private final int transcripts;
+            private final int files;
+            private final long bytes;
+            private final long elapsedNanos;
+
+            BatchResult(int transcripts, int files, long bytes, long elapsedNanos) {
+                this.transcripts = transcripts;
+                this.files = files;
+                this.bytes = bytes;
+                this.elapsedNanos = elapsedNanos;
+            }
+
+            public int getTranscripts() { return transcripts; }
+            public int getFiles() { return files; }
+            public long getBytes() { return bytes; }
+            public long getElapsedNanos() { return elapsedNanos; }
+
+            public double getTranscriptsPerSecond() {
+                return elapsedNanos == 0 ? 0 : transcripts / (elapsedNanos / 1_000_000_000.0);
+            }
+
+            @Override
+            public String toString() {
+                return String.format("%d transcripts to %d files (%.1f MB) in %.0f ms: %.0f transcripts/sec, %.1f MB/s",
+                        transcripts, files, bytes / 1e6, elapsedNanos / 1e6, getTranscriptsPerSecond(),
+                        bytes / 1e6 / (elapsedNanos / 1e9));
+            }
+        }
+
+        private TranscriptWriter() {
+        }
+
+        // Writes transcripts-000.txt, transcripts-001.txt, ... into directory,
+        // first deleting any transcripts-*.txt left by an earlier export so a
+        // run with fewer partitions leaves no stale files behind.
+        public static BatchResult writeAll(SIS sis, Path directory, int partitions) throws IOException {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, "transcripts-*.txt")) {
+                for (Path file : stale) {
+                    Files.delete(file);
+                }
+            }
+            List<Student> students = sis.getStudents();
+            int files = Math.max(1, Math.min(partitions, students.size()));
+            int perFile = (students.size() + files - 1) / files;
+            long[] bytes = new long[files];
+            long start = System.nanoTime();
+            try {
+                IntStream.range(0, files).parallel().forEach(partition -> {
+                    int from = Math.min(students.size(), partition * perFile);
+                    int to = Math.min(students.size(), from + perFile);
+                    Path file = directory.resolve(String.format("transcripts-%03d.txt", partition));
+                    try {
+                        bytes[partition] = writePartition(sis, students.subList(from, to), file);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            long elapsed = System.nanoTime() - start;
+            return new BatchResult(students.size(), files, Arrays.stream(bytes).sum(), elapsed);
+        }
+
+        private static long writePartition(SIS sis, List<Student> students, Path file) throws IOException {
+            StringBuilder text = new StringBuilder(1024);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            // An unencodable char, such as an unpaired surrogate in a name, is
+            // written as '?' rather than cutting the transcript short.
+            CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            long written = 0;
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Student student : students) {
+                    text.setLength(0);
+                    new Transcript(student, sis.getEnrollmentsByStudent(student)).render(text);
+                    text.append('\n');
+                    CharBuffer chars = CharBuffer.wrap(text);
+                    encoder.reset();
+                    while (encoder.encode(chars, buffer, true).isOverflow()) {
+                        written += drain(out, buffer);
+                    }
+                    while (encoder.flush(buffer).isOverflow()) {
+                        written += drain(out, buffer);
+                    }
+                }
+                written += drain(out, buffer);
+            }
+            return written;
+        }
+
+        private static int drain(FileChannel out, ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            int length = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+            return length;
+        }
+    }
+
+    // Writes every transcript of a large cohort with TranscriptWriter, single
+    // partition against one partition per core.
+    // Run with: java StudentInformationSystem$TranscriptBenchmark [students] [courses] [enrollments]
+    static class TranscriptBenchmark {
+        public static void main(String[] args) throws IOException {
+            int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+            int courseCount = args.length > 1 ? Integer.parseInt(args[1]) : 3_000;
+            int enrollmentCount = args.length > 2 ? Integer.parseInt(args[2]) : 3_000_000;
+            Grade[] grades = Grade.values();
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            SIS sis = new SIS(studentCount, courseCount, enrollmentCount);
+            for (int c = 0; c < courseCount; c++) {
+                sis.addCourse("C" + c, "Course " + c, 1 + c % 5);
+            }
+            for (int s = 0; s < studentCount; s++) {
+                sis.addStudent("S" + s, "Student " + s, "s" + s + "@example.edu");
+            }
+            for (int e = 0; e < enrollmentCount; e++) {
+                sis.enroll(sis.getStudents().get(random.nextInt(studentCount)),
+                        sis.getCourses().get(random.nextInt(courseCount)), grades[random.nextInt(grades.length)]);
+            }
+
+            int cores = Runtime.getRuntime().availableProcessors();
+            Path directory = Files.createTempDirectory("transcripts");
+            try {
+                for (int round = 1; round <= 3; round++) {
+                    for (int partitions : new int[] {1, cores * 4}) {
+                        System.out.println("round " + round + ", " + partitions + " partitions: "
+                                + TranscriptWriter.writeAll(sis, directory, partitions));
+                    }
+                }
+            } finally {
+                try (Stream<Path> files = Files.list(directory)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(directory);
+            }
+        }
+    }
+
+    // Generates million-row student, course and enrollment files and times
+    // importing them with RosterImporter.
+    // Run with: java StudentInformationSystem$ImportBenchmark [students] [courses] [enrollments]
+    static class ImportBenchmark {
+        public static void main(String[] args) throws IOException {
+            int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+            int courseCount = args.length > 1 ? Integer.parseInt(args[1]) : 3_000;
+            int enrollmentCount = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+            String[] letters = {"A", "A-", "B+", "B", "B-", "C+", "C", "D", "F"};
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+
+            Path directory = Files.createTempDirectory("roster");
+            Path students = directory.resolve("students.csv");
+            Path courses = directory.resolve("courses.tsv");
+            Path enrollments = directory.resolve("enrollments.csv");
+            try {
+                try (Writer writer = Files.newBufferedWriter(students, StandardCharsets.UTF_8)) {
+                    writer.write("student_id,name,email\n");
+                    for (int s = 0; s < studentCount; s++) {
+                        writer.write("S" + s + ",\"Student, " + s + "\",s" + s + "@example.edu\n");
+                    }
+                }
+                try (Writer writer = Files.newBufferedWriter(courses, StandardCharsets.UTF_8)) {
+                    for (int c = 0; c < courseCount; c++) {
+                        writer.write("C" + c + "\tCourse " + c + "\t" + (1 + c % 5) + "\n");
+                    }
+                }
+                try (Writer writer = Files.newBufferedWriter(enrollments, StandardCharsets.UTF_8)) {
+                    writer.write("student_id,course_id,grade\n");
+                    for (int e = 0; e < enrollmentCount; e++) {
+                        // About one row in a thousand references a student that does not exist.
+                        int student = random.nextInt(studentCount + studentCount / 1000 + 1);
+                        writer.write("S" + student + ",C" + random.nextInt(courseCount) + ","
+                                + letters[random.nextInt(letters.length)] + "\n");
+                    }
+                }
+
+                SIS sis = new SIS();
+                RosterImporter importer = new RosterImporter(sis);
+                System.out.println("students:    " + importer.importFile(students, RosterImporter.Kind.STUDENTS));
+                System.out.println("courses:     " + importer.importFile(courses, RosterImporter.Kind.COURSES));
+                System.out.println("enrollments: " + importer.importFile(enrollments, RosterImporter.Kind.ENROLLMENTS));
+                System.out.println("re-import:   " + importer.importFile(students, RosterImporter.Kind.STUDENTS));
+            } finally {
+                Files.deleteIfExists(students);
+                Files.deleteIfExists(courses);
+                Files.deleteIfExists(enrollments);
+                Files.deleteIfExists(directory);
+            }
+        }
+    }
+
+    // Registers a million students into thousands of courses and enrols each
+    // one, then times ID lookups against the linear scans SIS used before it
+    // was indexed (sampled, since scanning a million students per lookup is slow).
+    // Run with: java StudentInformationSystem$RegistryBenchmark [students] [courses] [enrollmentsPerStudent]
+    static class RegistryBenchmark {
+        public static void main(String[] args) {
+            int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+            int courseCount = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+            int perStudent = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+            SIS sis = new SIS();
+            long start = System.nanoTime();
+            for (int c = 0; c < courseCount; c++) {
+                sis.addCourse("C" + c, "Course " + c, 1 + c % 5);
+            }
+            for (int s = 0; s < studentCount; s++) {
+                sis.addStudent("S" + s, "Student " + s, "s" + s + "@example.edu");
+            }
+            long registerNanos = System.nanoTime() - start;
+            boolean duplicateRejected = !sis.addStudent("S0", "Duplicate", "dup@example.edu");
+
+            String[] studentIDs = new String[studentCount];
+            for (int s = 0; s < studentCount; s++) {
+                studentIDs[s] = "S" + s;
+            }
+            String[] courseIDs = new String[courseCount];
+            for (int c = 0; c < courseCount; c++) {
+                courseIDs[c] = "C" + c;
+            }
+            String[] letters = {"A", "A-", "B+", "B", "B-", "C+", "C", "D", "F"};
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int enrolled = 0;
+            start = System.nanoTime();
+            for (int s = 0; s < studentCount; s++) {
+                for (int e = 0; e < perStudent; e++) {
+                    if (sis.enrollStudent(studentIDs[s], courseIDs[random.nextInt(courseCount)], letters[random.nextInt(letters.length)])) {
+                        enrolled++;
+                    }
+                }
+            }
+            long enrollNanos = System.nanoTime() - start;
+            System.out.printf("%d students, %d courses: registered in %.0f ms, %d enrolments in %.0f ms "
+                            + "(%.0f ns/enrolment), duplicate ID rejected: %s%n",
+                    studentCount, courseCount, registerNanos / 1e6, enrolled, enrollNanos / 1e6,
+                    (double) enrollNanos / enrolled, duplicateRejected);
+
+            String[] sampleIDs = new String[200];
+            for (int i = 0; i < sampleIDs.length; i++) {
+                sampleIDs[i] = studentIDs[random.nextInt(studentCount)];
+            }
+            int samples = sampleIDs.length;
+            for (int round = 1; round <= 3; round++) {
+                long scanChecksum = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < samples; i++) {
+                    scanChecksum += scan(sis.getStudents(), sampleIDs[i]).getName().length();
+                }
+                long scanNanos = System.nanoTime() - start;
+
+                long indexChecksum = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < samples; i++) {
+                    indexChecksum += sis.findStudent(sampleIDs[i]).getName().length();
+                }
+                long indexNanos = System.nanoTime() - start;
+
+                System.out.printf("round %d: linear scan %.0f ns/lookup, indexed %.0f ns/lookup (checksums %d/%d)%n",
+                        round, (double) scanNanos / samples, (double) indexNanos / samples, scanChecksum, indexChecksum);
+
+                scanChecksum = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < samples; i++) {
+                    scanChecksum += scanEnrollments(sis.getEnrollments(), sis.findStudent(sampleIDs[i])).size();
+                }
+                scanNanos = System.nanoTime() - start;
+
+                indexChecksum = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < samples; i++) {
+                    indexChecksum += sis.getEnrollmentsByStudent(sis.findStudent(sampleIDs[i])).size();
+                }
+                indexNanos = System.nanoTime() - start;
+
+                System.out.printf("round %d: transcript scan %.0f ns/query, adjacency %.0f ns/query (checksums %d/%d)%n",
+                        round, (double) scanNanos / samples, (double) indexNanos / samples, scanChecksum, indexChecksum);
+            }
+
+            start = System.nanoTime();
+            long rostered = 0;
+            for (Course course : sis.getCourses()) {
+                rostered += sis.getRoster(course).size();
+            }
+            for (Student student : sis.getStudents()) {
+                rostered += sis.getEnrollmentsByStudent(student).size();
+            }
+            System.out.printf("every roster and transcript (%d rows) in %.0f ms%n", rostered, (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            int deansList = sis.getDeansList().size();
+            long averages = 0;
+            for (Course course : sis.getCourses()) {
+                averages += course.getAverage();
+            }
+            System.out.printf("dean's list (%d students) and %d course averages (checksum %d) in %.1f ms%n",
+                    deansList, courseCount, averages, (System.nanoTime() - start) / 1e6);
         }
 
-        private Course findCourse(String courseID) {
-            for (Course course : courses) {
-                if (course.getCourseID().equals(courseID)) {
-                    return course;
+        // The lookup SIS used before it was indexed.
+        private static Student scan(List<Student> students, String studentID) {
+            for (Student student : students) {
+                if (student.getStudentID().equals(studentID)) {
+                    return student;
                 }
             }
             return null;
         }
 
-        private List<Enrollment> getEnrollmentsByStudent(Student student) {
+        // The transcript query SIS used before the adjacency indexes.
+        private static List<Enrollment> scanEnrollments(List<Enrollment> enrollments, Student student) {
             List<Enrollment> studentEnrollments = new ArrayList<>();
             for (Enrollment enrollment : enrollments) {
                 if (enrollment.getStudent().equals(student)) {
@@ -143,6 +1276,25 @@ public class StudentInformationSystem {
 
     public static void main(String[] args) {
         SIS sis = new SIS();
+        Path snapshot = Path.of(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            try {
+                long start = System.nanoTime();
+                sis = Snapshot.load(snapshot);
+                System.out.printf("Loaded %d students, %d courses and %d enrollments in %.1f ms%n",
+                        sis.getStudents().size(), sis.getCourses().size(), sis.getEnrollmentCount(),
+                        (System.nanoTime() - start) / 1e6);
+            } catch (IOException e) {
+                // Keep the unreadable snapshot aside rather than overwriting it on exit.
+                Path aside = Path.of(SNAPSHOT_FILE + ".corrupt");
+                System.out.println("Could not load " + SNAPSHOT_FILE + ": " + e.getMessage() + "; starting empty, moved to " + aside);
+                try {
+                    Files.move(snapshot, aside, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException moveFailure) {
+                    System.out.println("Could not move " + SNAPSHOT_FILE + ": " + moveFailure.getMessage());
+                }
+            }
+        }
         Scanner scanner = new Scanner(System.in);
 
         while (true) {
@@ -151,7 +1303,11 @@ public class StudentInformationSystem {
             System.out.println("2. Add Course");
             System.out.println("3. Enroll Student");
             System.out.println("4. Generate Transcript");
-            System.out.println("5. Exit");
+            System.out.println("5. View Class Roster");
+            System.out.println("6. View Dean's List");
+            System.out.println("7. Import Roster File");
+            System.out.println("8. Export All Transcripts");
+            System.out.println("9. Exit");
             System.out.print("Choose an option: ");
             int choice = scanner.nextInt();
             scanner.nextLine(); // Consume newline
@@ -164,7 +1320,9 @@ public class StudentInformationSystem {
                     String name = scanner.nextLine();
                     System.out.print("Enter Student Email: ");
                     String email = scanner.nextLine();
-                    sis.addStudent(studentID, name, email);
+                    if (!sis.addStudent(studentID, name, email)) {
+                        System.out.println("A student with ID " + studentID + " already exists.");
+                    }
                 }
                 case 2 -> {
                     System.out.print("Enter Course ID: ");
@@ -174,7 +1332,9 @@ public class StudentInformationSystem {
                     System.out.print("Enter Credits: ");
                     int credits = scanner.nextInt();
                     scanner.nextLine(); // Consume newline
-                    sis.addCourse(courseID, courseName, credits);
+                    if (!sis.addCourse(courseID, courseName, credits)) {
+                        System.out.println("A course with ID " + courseID + " already exists.");
+                    }
                 }
                 case 3 -> {
                     System.out.print("Enter Student ID: ");
@@ -183,7 +1343,11 @@ public class StudentInformationSystem {
                     String cID = scanner.nextLine();
                     System.out.print("Enter Grade: ");
                     String grade = scanner.nextLine();
-                    sis.enrollStudent(sID, cID, grade);
+                    if (Grade.parse(grade) == null) {
+                        System.out.println("Invalid grade: " + grade + " (use A+ to F).");
+                    } else if (!sis.enrollStudent(sID, cID, grade)) {
+                        System.out.println("Student or course not found.");
+                    }
                 }
                 case 4 -> {
                     System.out.print("Enter Student ID: ");
@@ -191,6 +1355,44 @@ public class StudentInformationSystem {
                     sis.generateTranscript(stID);
                 }
                 case 5 -> {
+                    System.out.print("Enter Course ID: ");
+                    String rosterID = scanner.nextLine();
+                    sis.printRoster(rosterID);
+                }
+                case 6 -> sis.printDeansList();
+                case 7 -> {
+                    System.out.print("File type (1 = students, 2 = courses, 3 = enrollments): ");
+                    int type = scanner.nextInt();
+                    scanner.nextLine(); // Consume newline
+                    System.out.print("Enter file name: ");
+                    String fileName = scanner.nextLine();
+                    if (type < 1 || type > 3) {
+                        System.out.println("Invalid file type.");
+                    } else {
+                        try {
+                            RosterImporter.Kind kind = RosterImporter.Kind.values()[type - 1];
+                            System.out.println(new RosterImporter(sis).importFile(Path.of(fileName), kind));
+                        } catch (IOException e) {
+                            System.out.println("Import failed: " + e.getMessage());
+                        }
+                    }
+                }
+                case 8 -> {
+                    System.out.print("Enter output directory: ");
+                    String directory = scanner.nextLine();
+                    try {
+                        int partitions = Runtime.getRuntime().availableProcessors() * 4;
+                        System.out.println(TranscriptWriter.writeAll(sis, Path.of(directory), partitions));
+                    } catch (IOException e) {
+                        System.out.println("Export failed: " + e.getMessage());
+                    }
+                }
+                case 9 -> {
+                    try {
+                        Snapshot.save(sis, snapshot);
+                    } catch (IOException e) {
+                        System.out.println("Could not save " + SNAPSHOT_FILE + ": " + e.getMessage());
+                    }
                     System.out.println("Exiting...");
                     scanner.close();
                     return;